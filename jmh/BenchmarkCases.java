@@ -0,0 +1,149 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongSupplier;
+
+/**
+ * The operations measured by the JMH benchmarks in the {@code benchmarks} package, set up on a
+ * position of {@code fixtures/benchmark-positions.txt}. JMH only accepts benchmark classes in a
+ * named package, and those cannot use the game's classes in the default package, so the
+ * benchmarks look this class up by name in their setup and measure the operations it returns.
+ * Each operation returns the number of nodes it searched, or any value to consume.
+ */
+public final class BenchmarkCases {
+    private static final String POSITIONS = "fixtures/benchmark-positions.txt";
+    // Transposition table of the searching engine; cleared before every search.
+    private static final long ENGINE_TT_BYTES = 1L << 20;
+
+    private BenchmarkCases() {
+    }
+
+    /**
+     * Returns the operation with the given name on the named position of the fixture file.
+     *
+     * @param depth the depth of {@code bestMove} searches; ignored by the other operations.
+     */
+    public static LongSupplier operation(String name, String positionName, int depth) throws IOException {
+        int[][] moves = loadMoves(positionName);
+        int toMove = moves.length % 2 == 0 ? SearchBoard.BLACK : SearchBoard.WHITE;
+        switch (name) {
+            case "bestMove" -> {
+                SearchBoard board = searchBoard(moves);
+                ComputerPlayer engine = new ComputerPlayer(toMove == SearchBoard.BLACK ? Stone.BLACK : Stone.WHITE,
+                        null, null, ENGINE_TT_BYTES);
+                engine.setMaxDepth(depth);
+                engine.setTimeBudget(Long.MAX_VALUE);
+                engine.setOpeningBook(null);
+                // Every search starts from an empty table, so every operation does the same work.
+                return () -> {
+                    engine.getTranspositionTable().clear();
+                    engine.bestMove(board);
+                    return engine.getNodesSearched();
+                };
+            }
+            case "threatSearch" -> {
+                SearchBoard board = searchBoard(moves);
+                ThreatSearch threatSearch = new ComputerPlayer(Stone.BLACK, null, null, ENGINE_TT_BYTES).getThreatSearch();
+                return () -> {
+                    threatSearch.findWin(board, toMove);
+                    return threatSearch.getNodesSearched();
+                };
+            }
+            case "evaluateBoard" -> {
+                SearchBoard board = searchBoard(moves);
+                return () -> ComputerPlayer.PATTERN_EVALUATOR.evaluate(board, toMove);
+            }
+            case "placeRemove" -> {
+                // Placing and removing a stone is where the evaluation's work is actually done.
+                SearchBoard board = searchBoard(moves);
+                int[] empty = firstEmptyNearCenter(board);
+                return () -> {
+                    board.place(empty[0], empty[1], toMove);
+                    int score = board.score(toMove);
+                    board.remove(empty[0], empty[1], toMove);
+                    return score;
+                };
+            }
+            case "isWonBy" -> {
+                PlayerInterface black = new HumanPlayer(Stone.BLACK, "Black");
+                PlayerInterface white = new HumanPlayer(Stone.WHITE, "White");
+                ActualBoard board = actualBoard(moves, black, white);
+                return () -> (board.isWonBy(black) ? 1 : 0) + (board.isWonBy(white) ? 2 : 0);
+            }
+            case "getStoneGrid" -> {
+                ActualBoard board = actualBoard(moves, new HumanPlayer(Stone.BLACK, "Black"),
+                        new HumanPlayer(Stone.WHITE, "White"));
+                return () -> board.getStoneGrid()[7][7] == null ? 0 : 1;
+            }
+            case "winningRow" -> {
+                ActualBoard board = actualBoard(moves, new HumanPlayer(Stone.BLACK, "Black"),
+                        new HumanPlayer(Stone.WHITE, "White"));
+                if (board.winningRow() == null) {
+                    throw new IllegalArgumentException(positionName + " has no five in a row");
+                }
+                return () -> board.winningRow().size();
+            }
+            default -> throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+
+    // Reads the moves of the named position from the fixture on the class path.
+    private static int[][] loadMoves(String positionName) throws IOException {
+        InputStream in = BenchmarkCases.class.getResourceAsStream(POSITIONS);
+        if (in == null) {
+            throw new IOException(POSITIONS + " is not on the class path");
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (!fields[0].equals(positionName)) {
+                    continue;
+                }
+                int[][] moves = new int[fields.length - 1][];
+                for (int m = 1; m < fields.length; m++) {
+                    String[] xy = fields[m].split(",");
+                    moves[m - 1] = new int[]{Integer.parseInt(xy[0]), Integer.parseInt(xy[1])};
+                }
+                return moves;
+            }
+        }
+        throw new IllegalArgumentException("No position " + positionName + " in " + POSITIONS);
+    }
+
+    private static SearchBoard searchBoard(int[][] moves) {
+        SearchBoard board = new SearchBoard(ActualBoard.BOARD_SIZE);
+        for (int m = 0; m < moves.length; m++) {
+            board.place(moves[m][0], moves[m][1], m % 2 == 0 ? SearchBoard.BLACK : SearchBoard.WHITE);
+        }
+        return board;
+    }
+
+    private static ActualBoard actualBoard(int[][] moves, PlayerInterface black, PlayerInterface white) {
+        ActualBoard board = new ActualBoard();
+        for (int m = 0; m < moves.length; m++) {
+            board.placeStone(moves[m][0], moves[m][1], m % 2 == 0 ? black : white);
+        }
+        return board;
+    }
+
+    private static int[] firstEmptyNearCenter(SearchBoard board) {
+        int center = board.size() / 2;
+        for (int radius = 0; radius <= center; radius++) {
+            for (int x = center - radius; x <= center + radius; x++) {
+                for (int y = center - radius; y <= center + radius; y++) {
+                    if (board.isEmpty(x, y)) {
+                        return new int[]{x, y};
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("The board is full");
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time per call of the pattern evaluation, of placing a stone, rescoring and removing it, and of
+ * {@code ActualBoard.isWonBy} and {@code getStoneGrid}, on every position of
+ * {@code fixtures/benchmark-positions.txt}. Run as described in {@link SearchBenchmarks}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmarks {
+    @Param({"opening-1", "opening-2", "midgame-1", "midgame-2", "late-1", "late-2", "won-1"})
+    public String position;
+
+    private LongSupplier evaluateBoard;
+    private LongSupplier placeRemove;
+    private LongSupplier isWonBy;
+    private LongSupplier getStoneGrid;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        evaluateBoard = Cases.operation("evaluateBoard", position, 0);
+        placeRemove = Cases.operation("placeRemove", position, 0);
+        isWonBy = Cases.operation("isWonBy", position, 0);
+        getStoneGrid = Cases.operation("getStoneGrid", position, 0);
+    }
+
+    @Benchmark
+    public long evaluateBoard() {
+        return evaluateBoard.getAsLong();
+    }
+
+    @Benchmark
+    public long placeRemove() {
+        return placeRemove.getAsLong();
+    }
+
+    @Benchmark
+    public long isWonBy() {
+        return isWonBy.getAsLong();
+    }
+
+    @Benchmark
+    public long getStoneGrid() {
+        return getStoneGrid.getAsLong();
+    }
+}
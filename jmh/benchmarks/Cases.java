@@ -0,0 +1,22 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.LongSupplier;
+
+// Gets the measured operations from BenchmarkCases, which is in the default package with the
+// game's classes and so can only be reached by name from here. This is done once per trial, in
+// setup; the benchmarks then call the returned operation directly.
+final class Cases {
+    private Cases() {
+    }
+
+    static LongSupplier operation(String name, String position, int depth) throws Exception {
+        try {
+            return (LongSupplier) Class.forName("BenchmarkCases")
+                    .getMethod("operation", String.class, String.class, int.class)
+                    .invoke(null, name, position, depth);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+}
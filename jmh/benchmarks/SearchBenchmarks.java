@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Searches per second of {@code ComputerPlayer.bestMove} to a fixed depth, from an empty
+ * transposition table, and of {@code ThreatSearch.findWin}, on a position of each phase of the
+ * game in {@code fixtures/benchmark-positions.txt}. The nodes counter gives nodes per second.
+ * <p>
+ * Build with {@code mvn -Pjmh package}, then run and keep the results as JSON:
+ * {@code java -jar target/benchmarks.jar -rf json -rff results.json}. Two runs are compared
+ * through their result files, for example in a JMH result viewer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmarks {
+    @Param({"opening-1", "opening-2", "midgame-1", "midgame-2", "late-1", "late-2"})
+    public String position;
+
+    @Param("3")
+    public int depth;
+
+    private LongSupplier bestMove;
+    private LongSupplier threatSearch;
+
+    /** Nodes searched, reported by JMH as nodes per second. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        bestMove = Cases.operation("bestMove", position, depth);
+        threatSearch = Cases.operation("threatSearch", position, depth);
+    }
+
+    @Benchmark
+    public long bestMove(Nodes counter) {
+        long nodes = bestMove.getAsLong();
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    @Benchmark
+    public long threatSearch(Nodes counter) {
+        long nodes = threatSearch.getAsLong();
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time per call of {@code ActualBoard.winningRow} on the won positions of
+ * {@code fixtures/benchmark-positions.txt}. Run as described in {@link SearchBenchmarks}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WinningRowBenchmark {
+    @Param("won-1")
+    public String position;
+
+    private LongSupplier winningRow;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        winningRow = Cases.operation("winningRow", position, 0);
+    }
+
+    @Benchmark
+    public long winningRow() {
+        return winningRow.getAsLong();
+    }
+}
@@ -3,10 +3,14 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 // The ActualBoard class extends JPanel, indicating it's a GUI component.
@@ -15,87 +19,403 @@ public class ActualBoard extends JPanel {
 
     private int counter_stones = 0;
     // Constants for tile size and board size, defining the dimensions of the game board.
+    // TILE_SIZE is the size of a cell, in pixels, before any zoom.
     protected static final int TILE_SIZE = 30;
     protected static final int BOARD_SIZE = 15;
-    // A two-dimensional array representing the grid of the board.
-    private static PlayerInterface[][] grid = new PlayerInterface[BOARD_SIZE][BOARD_SIZE];
+    // The panel shows at most this many rows and columns at TILE_SIZE; larger boards are panned.
+    private static final int MAX_VISIBLE_SIZE = 19;
+    // Zoom limits, in pixels per cell, and the zoom factor of one notch of the mouse wheel.
+    private static final int MIN_TILE_SIZE = 4;
+    private static final int MAX_TILE_SIZE = 80;
+    private static final double WHEEL_ZOOM = 1.15;
+    // Zoom levels whose grid and stone images are kept; see ZoomLevel.
+    private static final int CACHED_ZOOM_LEVELS = 8;
+    // The four line directions a five can run in: vertical, horizontal and both diagonals.
+    private static final int[][] WIN_DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+    // Colors and stroke used when painting, created once instead of on every repaint.
+    private static final Color HOVER_COLOR = new Color(255, 255, 0, 128);
+    private static final BasicStroke WIN_STROKE = new BasicStroke(2);
+    // Set -Domok.paintTiming=true to print how long each repaint of the board takes.
+    private static final boolean PRINT_PAINT_TIMING = Boolean.getBoolean("omok.paintTiming");
+    // The background picture, loaded once and shared by every board.
+    private static final BufferedImage BACKGROUND_IMAGE = loadBackgroundImage();
+    // The images of the zoom levels used most recently, by cell size; only painting uses them.
+    private static final Map<Integer, ZoomLevel> ZOOM_LEVELS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ZoomLevel> eldest) {
+            return size() > CACHED_ZOOM_LEVELS;
+        }
+    };
+    // A two-dimensional array representing the grid of the board. Every board has its own, so
+    // many games can be played in one JVM at the same time.
+    private final PlayerInterface[][] grid;
+    // The taken places, in the order they were taken: a sparse index of the stones, so that
+    // copying, clearing and converting the board cost time in proportion to the stones rather
+    // than to the area, which matters on large boards where most places stay empty. Removing a
+    // stone moves the last place into its slot, so that it costs the same wherever the stone
+    // is; slots holds the position in the index of every taken place.
+    private final List<Place> occupied = new ArrayList<>();
+    private final int[][] slots;
     // Variables to track the last move made on the board.
     private int lastMoveX = -1;
     private int lastMoveY = -1;
     // Variables to track the mouse position on the board.
     private int mouseRow = -1;
     private int mouseCol = -1;
-    // A list to store places, which might be specific positions or areas on the board.
-    private List<Place> places_list = new ArrayList<>();
-    private BufferedImage backgroundImage;
+    // The player who completed five in a row, and the five winning places; null while nobody has won.
+    private PlayerInterface winner = null;
+    private List<Place> winningPlaces = null;
+    // The changes made by placeStone, oldest first, and the ones taken back by undoMove, most
+    // recently taken back last. Placing a stone forgets the changes taken back.
+    private final List<Move> history = new ArrayList<>();
+    private final List<Move> undone = new ArrayList<>();
+    // The view: the size of a cell in pixels, which the wheel changes smoothly and painting
+    // rounds, and the board position, in cells, shown at the center of the panel.
+    private double zoom = TILE_SIZE;
+    private double centerRow;
+    private double centerCol;
+    // Where a drag that pans the view started, and the view center at that moment.
+    private Point dragStart;
+    private double dragCenterRow;
+    private double dragCenterCol;
+    // The background scaled to the panel with the empty cells in view drawn on it, and the cell
+    // size and position of cell (0, 0) it was drawn for; rebuilt only when the view changes.
+    private BufferedImage boardLayer;
+    private int layerTile;
+    private int layerOriginX;
+    private int layerOriginY;
+    // Duration of the last paintComponent call, in nanoseconds.
+    private long lastPaintNanos = 0;
 
-    public ActualBoard() {
-        // Setting the preferred size of the panel based on the board size and tile size.
-        this.setPreferredSize(new Dimension(BOARD_SIZE * TILE_SIZE, BOARD_SIZE * TILE_SIZE));
-        // Attempt to load a background image, handling potential IO exceptions.
-        try {
-            backgroundImage = ImageIO.read(Objects.requireNonNull(getClass().getResource("images/CloudBackground.png")));
-        } catch (IOException e) {
-            e.printStackTrace();
-            backgroundImage = null;
+    /**
+     * The images for painting at one cell size: an empty cell, repeated over the visible part of
+     * the board as a texture, and the two stones. Making them takes far longer than painting, so
+     * they are kept for the last few zoom levels used, and going back to one costs nothing.
+     */
+    private static final class ZoomLevel {
+        final int tile;
+        final BufferedImage emptyCell;
+        final BufferedImage blackStone;
+        final BufferedImage grayStone;
+
+        ZoomLevel(int tile) {
+            this.tile = tile;
+            emptyCell = new BufferedImage(tile, tile, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = emptyCell.createGraphics();
+            g.setColor(Color.LIGHT_GRAY);
+            g.drawOval(0, 0, tile - 1, tile - 1);
+            g.dispose();
+            blackStone = createStoneSprite(Color.BLACK, tile);
+            grayStone = createStoneSprite(Color.GRAY, tile);
+        }
+
+        // Returns a paint that repeats the empty cell with cell (0, 0) at (originX, originY).
+        TexturePaint grid(int originX, int originY) {
+            return new TexturePaint(emptyCell, new Rectangle(originX, originY, tile, tile));
         }
-        clear();
-        this.addMouseListener(new MouseAdapter() {
+    }
+
+    public ActualBoard() {
+        this(BOARD_SIZE);
+    }
+
+    public ActualBoard(int size) {
+        grid = new PlayerInterface[size][size];
+        slots = new int[size][size];
+        centerRow = size / 2.0;
+        centerCol = size / 2.0;
+        // Setting the preferred size of the panel based on the board size and tile size; boards
+        // larger than MAX_VISIBLE_SIZE are panned and zoomed within it.
+        int visible = Math.min(size, MAX_VISIBLE_SIZE);
+        this.setPreferredSize(new Dimension(visible * TILE_SIZE, visible * TILE_SIZE));
+        MouseAdapter mouse = new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                int x = e.getX() / TILE_SIZE;
-                int y = e.getY() / TILE_SIZE;
-                lastMoveX = x;
-                lastMoveY = y;
-                repaint();
+                Place place = placeAt(e.getX(), e.getY());
+                if (place != null) {
+                    lastMoveX = place.x;
+                    lastMoveY = place.y;
+                    repaint();
+                }
             }
-        });
-        this.addMouseMotionListener(new MouseAdapter() {
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                moveHover(-1, -1);
+            }
+
             @Override
             public void mouseMoved(MouseEvent e) {
-                mouseRow = e.getY() / TILE_SIZE;
-                mouseCol = e.getX() / TILE_SIZE;
-                repaint();
+                Place place = placeAt(e.getX(), e.getY());
+                moveHover(place == null ? -1 : place.x, place == null ? -1 : place.y);
             }
-        });
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+                dragCenterRow = centerRow;
+                dragCenterCol = centerCol;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart != null) {
+                    int tile = tileSize();
+                    setCenter(dragCenterRow - (double) (e.getY() - dragStart.y) / tile,
+                            dragCenterCol - (double) (e.getX() - dragStart.x) / tile);
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoomAt(e.getX(), e.getY(), Math.pow(WHEEL_ZOOM, -e.getPreciseWheelRotation()));
+            }
+        };
+        this.addMouseListener(mouse);
+        this.addMouseMotionListener(mouse);
+        this.addMouseWheelListener(mouse);
+    }
+
+    // Attempt to load a background image, handling potential IO exceptions.
+    private static BufferedImage loadBackgroundImage() {
+        try {
+            return ImageIO.read(Objects.requireNonNull(ActualBoard.class.getResource("images/CloudBackground.png")));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Returns the size of a cell on screen, in pixels: the zoom, rounded and kept within the limits.
+    private int tileSize() {
+        return Math.max(minTileSize(), Math.min(MAX_TILE_SIZE, (int) Math.round(zoom)));
     }
 
+    // Returns the smallest cell size worth zooming out to: the one at which the whole board
+    // fits the panel, but no smaller than MIN_TILE_SIZE, nor larger than TILE_SIZE.
+    private int minTileSize() {
+        int fit = Math.min(getWidth(), getHeight()) / sizeBoard();
+        return Math.max(MIN_TILE_SIZE, Math.min(TILE_SIZE, fit));
+    }
+
+    // Returns the x-coordinate on the panel of the left edge of column 0, for the given cell size.
+    private int originX(int tile) {
+        return (int) Math.round(getWidth() / 2.0 - centerCol * tile);
+    }
+
+    // Returns the y-coordinate on the panel of the top edge of row 0, for the given cell size.
+    private int originY(int tile) {
+        return (int) Math.round(getHeight() / 2.0 - centerRow * tile);
+    }
+
+    /**
+     * Returns the place of the board under a point of the panel, or null if the point is off
+     * the board.
+     *
+     * @param px the x-coordinate on the panel.
+     * @param py the y-coordinate on the panel.
+     * @return the place, with x the row and y the column, or null.
+     */
+    public Place placeAt(int px, int py) {
+        int tile = tileSize();
+        int row = Math.floorDiv(py - originY(tile), tile);
+        int col = Math.floorDiv(px - originX(tile), tile);
+        if (row < 0 || row >= sizeBoard() || col < 0 || col >= sizeBoard()) {
+            return null;
+        }
+        return new Place(row, col);
+    }
+
+    /**
+     * Zooms the view by a factor, keeping the board position under the given point of the
+     * panel where it is, as the mouse wheel does.
+     *
+     * @param px     the x-coordinate on the panel to zoom around.
+     * @param py     the y-coordinate on the panel to zoom around.
+     * @param factor the zoom factor; above 1 zooms in.
+     */
+    public void zoomAt(int px, int py, double factor) {
+        int tile = tileSize();
+        double row = centerRow + (py - getHeight() / 2.0) / tile;
+        double col = centerCol + (px - getWidth() / 2.0) / tile;
+        zoom = Math.max(minTileSize(), Math.min(MAX_TILE_SIZE, zoom * factor));
+        tile = tileSize();
+        setCenter(row - (py - getHeight() / 2.0) / tile, col - (px - getWidth() / 2.0) / tile);
+    }
+
+    // Moves the view, keeping the board in the panel: a board smaller than the panel stays
+    // centered, and a larger one cannot be panned past its edges.
+    private void setCenter(double row, double col) {
+        int tile = tileSize();
+        centerRow = clampCenter(row, getHeight() / 2.0 / tile);
+        centerCol = clampCenter(col, getWidth() / 2.0 / tile);
+        repaint();
+    }
+
+    private double clampCenter(double center, double halfView) {
+        if (2 * halfView >= sizeBoard()) {
+            return sizeBoard() / 2.0;
+        }
+        return Math.max(halfView, Math.min(sizeBoard() - halfView, center));
+    }
+
+    // Moves the hover highlight to the given cell, repainting only the cell it leaves and the cell it enters.
+    private void moveHover(int row, int col) {
+        if (row == mouseRow && col == mouseCol) {
+            return;
+        }
+        repaintCell(mouseRow, mouseCol);
+        mouseRow = row;
+        mouseCol = col;
+        repaintCell(mouseRow, mouseCol);
+    }
+
+    // Schedules a repaint of a single cell of the board, if it is on the board.
+    private void repaintCell(int row, int col) {
+        if (row >= 0 && row < sizeBoard() && col >= 0 && col < sizeBoard()) {
+            int tile = tileSize();
+            repaint(originX(tile) + col * tile, originY(tile) + row * tile, tile + 1, tile + 1);
+        }
+    }
+
+    /**
+     * Paints the part of the board inside the clip area, in layers: the background and empty
+     * cells from a cached image of the view, then the stones, the winning row and the hover
+     * highlight. Only the rows and columns in view are visited, and stones are found through
+     * the index of taken places when that is shorter, so the time a repaint takes depends on the
+     * size of the panel and the zoom, not on the size of the board.
+     */
     @Override
     protected void paintComponent(Graphics g) {
+        BoardPaintEvent event = new BoardPaintEvent();
+        event.begin();
+        long start = System.nanoTime();
         super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g;
 
-        if (backgroundImage != null) {
-            g.drawImage(backgroundImage, 0, 0, this.getWidth(), this.getHeight(), this);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
         }
-
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                PlayerInterface player = grid[i][j];
-                if (player != null) {
-                    g.setColor(player.getStoneType().equals(Stone.BLACK) ? Color.BLACK : Color.GRAY);
-                    g.fillOval(j * TILE_SIZE, i * TILE_SIZE, TILE_SIZE, TILE_SIZE);
-                } else {
-                    g.setColor(Color.LIGHT_GRAY);
-                    g.drawOval(j * TILE_SIZE, i * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+        int tile = tileSize();
+        ZoomLevel level = zoomLevel(tile);
+        int originX = originX(tile);
+        int originY = originY(tile);
+        g.drawImage(getBoardLayer(level, originX, originY), clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, this);
+
+        int firstRow = Math.max(0, Math.floorDiv(clip.y - originY, tile));
+        int lastRow = Math.min(sizeBoard() - 1, Math.floorDiv(clip.y + clip.height - originY, tile));
+        int firstCol = Math.max(0, Math.floorDiv(clip.x - originX, tile));
+        int lastCol = Math.min(sizeBoard() - 1, Math.floorDiv(clip.x + clip.width - originX, tile));
+        int cells = Math.max(0, lastRow - firstRow + 1) * Math.max(0, lastCol - firstCol + 1);
+        if (cells > 0) {
+            if (occupied.size() < cells) {
+                for (Place place : occupied) {
+                    if (place.x >= firstRow && place.x <= lastRow && place.y >= firstCol && place.y <= lastCol) {
+                        drawStone(g, level, grid[place.x][place.y], originX + place.y * tile, originY + place.x * tile);
+                    }
+                }
+            } else {
+                for (int i = firstRow; i <= lastRow; i++) {
+                    for (int j = firstCol; j <= lastCol; j++) {
+                        if (grid[i][j] != null) {
+                            drawStone(g, level, grid[i][j], originX + j * tile, originY + i * tile);
+                        }
+                    }
                 }
             }
         }
 
-        List<Place> winningPlaces = winningRow();
+        // The winning row is game state recorded when the winning stone is placed, not recomputed here.
         if (winningPlaces != null) {
-            g.setColor(Color.RED);
+            g2.setColor(Color.RED);
+            g2.setStroke(WIN_STROKE);
             for (Place place : winningPlaces) {
-                g.drawOval(place.y * TILE_SIZE, place.x * TILE_SIZE, TILE_SIZE, TILE_SIZE);
-                Graphics2D g2 = (Graphics2D) g;
-                g2.setStroke(new BasicStroke(2));
-                g2.drawOval(place.y * TILE_SIZE + 1, place.x * TILE_SIZE + 1, TILE_SIZE - 2, TILE_SIZE - 2);
+                g2.drawOval(originX + place.y * tile + 1, originY + place.x * tile + 1, tile - 2, tile - 2);
             }
         }
 
-        if (mouseRow >= 0 && mouseRow < BOARD_SIZE && mouseCol >= 0 && mouseCol < BOARD_SIZE) {
-            g.setColor(new Color(255, 255, 0, 128));
-            g.fillOval(mouseCol * TILE_SIZE, mouseRow * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+        if (mouseRow >= 0 && mouseRow < sizeBoard() && mouseCol >= 0 && mouseCol < sizeBoard()) {
+            g.setColor(HOVER_COLOR);
+            g.fillOval(originX + mouseCol * tile, originY + mouseRow * tile, tile, tile);
+        }
+
+        lastPaintNanos = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = clip.width;
+            event.height = clip.height;
+            event.cells = cells;
+            event.tileSize = tile;
+            event.commit();
+        }
+        if (PRINT_PAINT_TIMING) {
+            System.out.printf("Board paint %dx%d at %d px per cell took %.3f ms%n", clip.width, clip.height, tile,
+                    lastPaintNanos / 1e6);
+        }
+    }
+
+    private static void drawStone(Graphics g, ZoomLevel level, PlayerInterface player, int x, int y) {
+        BufferedImage sprite = player.getStoneType().equals(Stone.BLACK) ? level.blackStone : level.grayStone;
+        g.drawImage(sprite, x, y, null);
+    }
+
+    // Returns the images for the given cell size, making them if that zoom level is not cached.
+    private static ZoomLevel zoomLevel(int tile) {
+        synchronized (ZOOM_LEVELS) {
+            return ZOOM_LEVELS.computeIfAbsent(tile, ZoomLevel::new);
+        }
+    }
+
+    // Returns the cached layer of the view, building it again if the panel was resized or the
+    // view panned or zoomed. The empty cells are one texture fill of the part of the board in
+    // view, so building it costs the same whatever the size of the board.
+    private BufferedImage getBoardLayer(ZoomLevel level, int originX, int originY) {
+        int width = Math.max(1, getWidth());
+        int height = Math.max(1, getHeight());
+        boolean resized = boardLayer == null || boardLayer.getWidth() != width || boardLayer.getHeight() != height;
+        if (resized || layerTile != level.tile || layerOriginX != originX || layerOriginY != originY) {
+            if (resized) {
+                GraphicsConfiguration config = getGraphicsConfiguration();
+                boardLayer = config != null
+                        ? config.createCompatibleImage(width, height)
+                        : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            Graphics2D g = boardLayer.createGraphics();
+            g.setColor(getBackground());
+            g.fillRect(0, 0, width, height);
+            if (BACKGROUND_IMAGE != null) {
+                g.drawImage(BACKGROUND_IMAGE, 0, 0, width, height, null);
+            }
+            Rectangle board = new Rectangle(originX, originY, sizeBoard() * level.tile, sizeBoard() * level.tile)
+                    .intersection(new Rectangle(0, 0, width, height));
+            if (!board.isEmpty()) {
+                g.setPaint(level.grid(originX, originY));
+                g.fill(board);
+            }
+            g.dispose();
+            layerTile = level.tile;
+            layerOriginX = originX;
+            layerOriginY = originY;
         }
+        return boardLayer;
+    }
+
+    // Draws one antialiased stone of the given color on a transparent tile of the given size.
+    private static BufferedImage createStoneSprite(Color color, int tile) {
+        BufferedImage sprite = new BufferedImage(tile + 1, tile + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(color);
+        g.fillOval(0, 0, tile, tile);
+        g.dispose();
+        return sprite;
+    }
+
+    // Returns how long the last repaint of the board took, in nanoseconds.
+    public long getLastPaintNanos() {
+        return lastPaintNanos;
     }
 
     public int getLastMoveX() {
@@ -106,18 +426,25 @@ public class ActualBoard extends JPanel {
         return lastMoveY;
     }
 
-    public ActualBoard(int size) {
-        grid = new PlayerInterface[size][size];
-    }
-
 // Returns the size of the board, which is the length of the grid.
     public int sizeBoard() {
         return grid.length;
     }
 
-// Clears the board by reinitializing the grid with PlayerInterface objects.
+// Clears the board by emptying every taken place of the grid and resetting the stone count.
     public void clear() {
-        grid = new PlayerInterface[sizeBoard()][sizeBoard()];
+        for (Place place : occupied) {
+            grid[place.x][place.y] = null;
+        }
+        occupied.clear();
+        history.clear();
+        undone.clear();
+        counter_stones = 0;
+        lastMoveX = -1;
+        lastMoveY = -1;
+        winner = null;
+        winningPlaces = null;
+        repaint();
     }
 
 // Checks if the board is full by comparing the counter of stones with the total number of positions on the board.
@@ -125,136 +452,252 @@ public class ActualBoard extends JPanel {
         return counter_stones == sizeBoard()*sizeBoard();
     }
 
+// Returns the number of stones on the board.
+    public int stoneCount() {
+        return counter_stones;
+    }
+
+    /**
+     * Places the player's stone at (x, y), or removes the stone there when player is null. The
+     * stone count only changes when a place goes from empty to taken or back, so replacing a stone
+     * or removing from an empty place keeps it correct. The change is added to the move history,
+     * so {@code undoMove} can take it back.
+     */
     public void placeStone(int x, int y, PlayerInterface player) {
-        counter_stones++;
+        Move move = new Move(x, y, grid[x][y], player, lastMoveX, lastMoveY, winner, winningPlaces);
+        move.occupiedIndex = setStone(x, y, player, -1);
         lastMoveX = x;
         lastMoveY = y;
-        grid[x][y] = player;
+        // Removing or replacing a stone of the winning row breaks the five.
+        if (move.before != player && winningPlaces != null && isWinningPlace(x, y)) {
+            repaintWinningRow();
+            winner = null;
+            winningPlaces = null;
+        }
+        if (player != null && winner == null && checkWin(x, y, player)) {
+            repaintWinningRow();
+        }
+        move.winnerAfter = winner;
+        move.winningPlacesAfter = winningPlaces;
+        history.add(move);
+        undone.clear();
+        repaintCell(x, y);
     }
 
-    public boolean isEmpty(int x, int y) {
-        return grid[x][y]== null;
+    /**
+     * Takes back the last change made by placeStone: the stone at its place, the stone count,
+     * the index of taken places, the last move and the winner and winning row all become what
+     * they were before it. It costs the same however long the game is and whatever the change
+     * was: the change is the most recent entry of the history, and a stone is taken off or put
+     * back into the index of taken places through its slot.
+     *
+     * @return the place of the change taken back, or null if there is nothing to take back.
+     */
+    public Place undoMove() {
+        if (history.isEmpty()) {
+            return null;
+        }
+        Move move = history.remove(history.size() - 1);
+        setStone(move.x, move.y, move.before, move.occupiedIndex);
+        lastMoveX = move.lastMoveXBefore;
+        lastMoveY = move.lastMoveYBefore;
+        setWinner(move.winnerBefore, move.winningPlacesBefore);
+        undone.add(move);
+        repaintCell(move.x, move.y);
+        return new Place(move.x, move.y);
     }
 
-    public boolean isOccupied(int x, int y) {
-        return grid[x][y] != null;
+    /**
+     * Makes again the change most recently taken back by undoMove, restoring the state it left
+     * without checking the lines again. Like undoMove, it costs the same however long the game is.
+     *
+     * @return the place of the change made again, or null if there is nothing to make again.
+     */
+    public Place redoMove() {
+        if (undone.isEmpty()) {
+            return null;
+        }
+        Move move = undone.remove(undone.size() - 1);
+        move.occupiedIndex = setStone(move.x, move.y, move.after, -1);
+        lastMoveX = move.x;
+        lastMoveY = move.y;
+        setWinner(move.winnerAfter, move.winningPlacesAfter);
+        history.add(move);
+        repaintCell(move.x, move.y);
+        return new Place(move.x, move.y);
     }
 
-    public boolean isOccupiedBy(int x, int y, PlayerInterface player) {
-        return grid[x][y].equals(player);
+    public boolean canUndo() {
+        return !history.isEmpty();
     }
 
-    public PlayerInterface playerAt(int x, int y) {
-        return grid[x][y];
+    public boolean canRedo() {
+        return !undone.isEmpty();
+    }
+
+    // Returns the player whose stone the last change placed, or null if it removed a stone or
+    // there is no change to take back.
+    public PlayerInterface lastMover() {
+        return history.isEmpty() ? null : history.get(history.size() - 1).after;
+    }
+
+    // Returns the player whose stone the next redoMove places, or null if it removes a stone or
+    // there is nothing to make again.
+    public PlayerInterface nextRedoMover() {
+        return undone.isEmpty() ? null : undone.get(undone.size() - 1).after;
     }
 
     /**
-     * Checks for a winning sequence in a specific direction (dx, dy) starting from (x, y) for a given player.
-     * It adds the positions to places_list if they are part of a winning sequence. Returns true if 5 consecutive positions belong to the player.
+     * Puts the player's stone, or nothing when player is null, at (x, y), keeping the stone count
+     * and the index of taken places right. A stone going back onto the board is put at the given
+     * position of the index, the one it was removed from, or at the end when it is -1.
+     *
+     * @return the position in the index of a stone taken off the board, or -1.
      */
-    private boolean checkDirection(int x, int y, PlayerInterface player, int dx, int dy) {
-        int count = 0;
-        for (int i = -4; i <= 4; i++) {
-            int newX = x + dx * i;
-            int newY = y + dy * i;
-
-            if (newX >= 0 && newX < sizeBoard() && newY >= 0 && newY < sizeBoard() && grid[newX][newY] == player) {
-                count++;
-                places_list.add(new Place(newX, newY));
-                if (count == 5) return true;
-            } else {
-                places_list.clear();
-                count = 0;
+    private int setStone(int x, int y, PlayerInterface player, int occupiedIndex) {
+        int removedIndex = -1;
+        if (grid[x][y] == null && player != null) {
+            counter_stones++;
+            addOccupied(x, y, occupiedIndex);
+        } else if (grid[x][y] != null && player == null) {
+            counter_stones--;
+            removedIndex = removeOccupied(x, y);
+        }
+        grid[x][y] = player;
+        return removedIndex;
+    }
+
+    // Replaces the winner and winning row, repainting the rows that go and come.
+    private void setWinner(PlayerInterface newWinner, List<Place> newWinningPlaces) {
+        if (winningPlaces != newWinningPlaces) {
+            if (winningPlaces != null) {
+                repaintWinningRow();
+            }
+            winner = newWinner;
+            winningPlaces = newWinningPlaces;
+            if (winningPlaces != null) {
+                repaintWinningRow();
             }
         }
+    }
 
-        return false;
+    // Adds (x, y) to the taken places at the end, or at the given position when it is not -1.
+    // That undoes removeOccupied: the place there goes back to the end, where it came from.
+    private void addOccupied(int x, int y, int index) {
+        Place place = new Place(x, y);
+        if (index < 0 || index == occupied.size()) {
+            slots[x][y] = occupied.size();
+            occupied.add(place);
+            return;
+        }
+        Place moved = occupied.get(index);
+        slots[moved.x][moved.y] = occupied.size();
+        occupied.add(moved);
+        occupied.set(index, place);
+        slots[x][y] = index;
+    }
+
+    // Drops (x, y) from the taken places, moving the last place into its slot, and returns the
+    // position it had. The last stone placed, the usual one to remove, just goes from the end.
+    private int removeOccupied(int x, int y) {
+        int index = slots[x][y];
+        Place last = occupied.remove(occupied.size() - 1);
+        if (index < occupied.size()) {
+            occupied.set(index, last);
+            slots[last.x][last.y] = index;
+        }
+        return index;
     }
-    private boolean checkDirection(int x, int y, int dx, int dy) {
-        int count = 0;
-        Object currentPlayer = grid[x][y];
 
-        if (currentPlayer == null) {
-            return false;
+    // Schedules a repaint of the cells of the winning row.
+    private void repaintWinningRow() {
+        for (Place place : winningPlaces) {
+            repaintCell(place.x, place.y);
         }
+    }
 
-        List<Place> tempPlacesList = new ArrayList<>();
+    public boolean isEmpty(int x, int y) {
+        return grid[x][y]== null;
+    }
 
-        for (int i = -4; i <= 4; i++) {
-            int newX = x + dx * i;
-            int newY = y + dy * i;
+    public boolean isOccupied(int x, int y) {
+        return grid[x][y] != null;
+    }
 
-            if (newX >= 0 && newX < sizeBoard() && newY >= 0 && newY < sizeBoard() && grid[newX][newY] == currentPlayer) {
-                count++;
-                tempPlacesList.add(new Place(newX, newY));
-                if (count == 5) {
-                    places_list = tempPlacesList;
-                    return true;
-                }
-            } else {
-                tempPlacesList.clear();
-                count = 0;
-            }
-        }
+    public boolean isOccupiedBy(int x, int y, PlayerInterface player) {
+        return grid[x][y].equals(player);
+    }
 
-        return false;
+    public PlayerInterface playerAt(int x, int y) {
+        return grid[x][y];
     }
 
     /**
-     * Checks if the given player has won by having five consecutive tiles in any direction.
-     * It calls checkDirection for horizontal, vertical, and both diagonal directions.
+     * Counts the player's stones in a row starting next to (x, y) and going in direction (dx, dy).
      */
-    private boolean checkWin(int x, int y, PlayerInterface player) {
-        if (x == -1 || y == -1){
-            return true;
+    private int countFrom(int x, int y, int dx, int dy, PlayerInterface player) {
+        int count = 0;
+        int newX = x + dx;
+        int newY = y + dy;
+        while (newX >= 0 && newX < sizeBoard() && newY >= 0 && newY < sizeBoard() && grid[newX][newY] == player) {
+            count++;
+            newX += dx;
+            newY += dy;
         }
-        return checkDirection(x, y, player, 1, 0) ||
-                checkDirection(x, y, player, 0, 1) ||
-                checkDirection(x, y, player, 1, 1) ||
-                checkDirection(x, y, player, 1, -1);
-
-    }
-    private boolean checkWin(int x, int y) {
-        return checkDirection(x, y, 1, 0) ||
-                checkDirection(x, y, 0, 1) ||
-                checkDirection(x, y, 1, 1) ||
-                checkDirection(x, y, 1, -1);
+        return count;
     }
 
     /**
-     * Checks the entire board to determine if the given player has won.
-     * Iterates through each cell, and if it belongs to the currentPlayer, checks for a winning condition at that cell.
+     * Checks whether the stone just placed at (x, y) gives the player five in a row. Only the four
+     * lines through (x, y) are looked at, since any new five has to include the new stone. If a
+     * five is found, the player and the five places (including (x, y)) are remembered.
      */
-    private boolean hasCurrentPlayerWon(PlayerInterface currentPlayer) {
-        for (int i = 0; i < sizeBoard(); i++) {
-            for (int j = 0; j < sizeBoard(); j++) {
-                if (grid[i][j] == currentPlayer &&
-                        checkWin(i, j, currentPlayer)) {
-                    return true;
+    private boolean checkWin(int x, int y, PlayerInterface player) {
+        for (int[] direction : WIN_DIRECTIONS) {
+            int dx = direction[0];
+            int dy = direction[1];
+            int before = countFrom(x, y, -dx, -dy, player);
+            int after = countFrom(x, y, dx, dy, player);
+            if (before + 1 + after >= 5) {
+                int back = Math.min(before, 4);
+                List<Place> places = new ArrayList<>(5);
+                for (int i = 0; i < 5; i++) {
+                    places.add(new Place(x + dx * (i - back), y + dy * (i - back)));
                 }
+                winner = player;
+                winningPlaces = places;
+                return true;
             }
         }
         return false;
     }
 
-    // Public method that delegates to hasCurrentPlayerWon to determine if the specified player has won.
+    // Whether (x, y) is one of the five winning places.
+    private boolean isWinningPlace(int x, int y) {
+        for (Place place : winningPlaces) {
+            if (place.x == x && place.y == y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Public method that tells whether the specified player has completed five in a row.
     public boolean isWonBy(PlayerInterface player) {
-        return hasCurrentPlayerWon(player);
+        return player != null && winner == player;
+    }
+
+    // Returns the player who has won, or null if nobody has won yet.
+    public PlayerInterface getWinner() {
+        return winner;
     }
 
     /**
-     * Determines the winning row (line of consecutive tiles) for the current state of the board.
-     * If a win condition is found, it returns the list of winning places; otherwise, returns null.
+     * Returns the winning row (line of five consecutive tiles), which is recorded when the winning
+     * stone is placed, so no board scan is needed. Returns null if nobody has won.
      */
     public List<Place> winningRow() {
-        for (int i = 0; i < sizeBoard(); i++) {
-            for (int j = 0; j < sizeBoard(); j++) {
-                if (checkWin(i, j)) {
-                    return places_list;
-                }
-            }
-        }
-        return null;
+        return winningPlaces;
     }
 
 // Returns the current grid representing the state of the board.
@@ -262,20 +705,61 @@ public class ActualBoard extends JPanel {
         return grid;
     }
 
+    /**
+     * Returns the taken places, in the order they were taken, as a read-only view that follows
+     * the board. Walking them costs time in proportion to the stones, not to the board area.
+     * Removing a stone puts the last place where it was, so the last place is the last stone
+     * placed only as long as none were removed, as in a game.
+     */
+    public List<Place> occupiedPlaces() {
+        return Collections.unmodifiableList(occupied);
+    }
+
     /**
      * Converts the current grid of PlayerInterface to a grid of Stone objects.
      * If a cell in the grid is occupied by a player, it gets the corresponding Stone type; if not, it remains null.
+     * Only the taken places are visited.
      */
     public Stone[][] getStoneGrid() {
-        Stone[][] stoneGrid = new Stone[BOARD_SIZE][BOARD_SIZE];
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                stoneGrid[i][j] = grid[i][j] != null ? grid[i][j].getStoneType() : null;
-            }
+        Stone[][] stoneGrid = new Stone[sizeBoard()][sizeBoard()];
+        for (Place place : occupied) {
+            stoneGrid[place.x][place.y] = grid[place.x][place.y].getStoneType();
         }
         return stoneGrid;
     }
 
+    /**
+     * One change made by placeStone: the place, the stone before and after it, and the last move
+     * and winning state before and after it, so it can be taken back and made again without
+     * looking at the rest of the board.
+     */
+    private static final class Move {
+        final int x;
+        final int y;
+        final PlayerInterface before;
+        final PlayerInterface after;
+        final int lastMoveXBefore;
+        final int lastMoveYBefore;
+        final PlayerInterface winnerBefore;
+        final List<Place> winningPlacesBefore;
+        PlayerInterface winnerAfter;
+        List<Place> winningPlacesAfter;
+        // Where a stone the change removed was in the index of taken places, or -1.
+        int occupiedIndex;
+
+        Move(int x, int y, PlayerInterface before, PlayerInterface after, int lastMoveXBefore, int lastMoveYBefore,
+             PlayerInterface winnerBefore, List<Place> winningPlacesBefore) {
+            this.x = x;
+            this.y = y;
+            this.before = before;
+            this.after = after;
+            this.lastMoveXBefore = lastMoveXBefore;
+            this.lastMoveYBefore = lastMoveYBefore;
+            this.winnerBefore = winnerBefore;
+            this.winningPlacesBefore = winningPlacesBefore;
+        }
+    }
+
     /**
      * An inner class representing a location on the board with x and y coordinates.
      * Provides a method to return a string representation of the Place.
@@ -5,11 +5,17 @@ import java.net.URL;
 // BoardFrame extends JPanel and is designed to represent the main game panel in a GUI application.
 public class BoardFrame extends JPanel {
     private final boolean isAIGame;
+    private final int boardSize;
     private OmokGameDesign game;
     private JToolBar toolBar;
     // Constructor for BoardFrame. Initializes the UI components and toolbar.
     public BoardFrame(PlayerInterface player1, PlayerInterface player2, boolean isAIGame) throws IOException {
+        this(player1, player2, isAIGame, ActualBoard.BOARD_SIZE);
+    }
+    // Constructor for a game on a board of the given number of rows and columns.
+    public BoardFrame(PlayerInterface player1, PlayerInterface player2, boolean isAIGame, int boardSize) throws IOException {
         this.isAIGame = isAIGame;
+        this.boardSize = boardSize;
         initializeToolBar();
         initializeUI(player1, player2);
     }
@@ -46,6 +52,20 @@ public class BoardFrame extends JPanel {
                 System.out.println("Icon not found for: " + fileName);
             }
         }
+
+        // Taking moves back and making them again, as text buttons since there are no icons for them.
+        String[] labels = {"Undo", "Redo"};
+        Runnable[] historyActions = {
+                () -> game.undoMove(),
+                () -> game.redoMove(),
+        };
+        for (int i = 0; i < labels.length; i++) {
+            JButton button = new JButton(labels[i]);
+            button.setFocusable(false);
+            int finalI = i;
+            button.addActionListener(e -> historyActions[finalI].run());
+            toolBar.add(button);
+        }
     }
     // Handles the action to return to the main menu. Asks the user for confirmation before proceeding.
     // If confirmed, it disposes the current frame and launches a new main menu frame.
@@ -55,6 +75,7 @@ public class BoardFrame extends JPanel {
                 "Return to Main Menu", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
+            game.shutdown();
             JFrame topFrame = (JFrame) SwingUtilities.getWindowAncestor(this);
             if (topFrame != null) {
                 topFrame.dispose();
@@ -109,7 +130,7 @@ public class BoardFrame extends JPanel {
         this.add(player1Panel, BorderLayout.WEST);
         this.add(player2Panel, BorderLayout.EAST);
 
-        game = new OmokGameDesign(player1Panel, player1, player2Panel, player2, isAIGame);
+        game = new OmokGameDesign(player1Panel, player1, player2Panel, player2, isAIGame, boardSize);
         this.add(game, BorderLayout.CENTER);
 
         player1Panel.setPreferredSize(new Dimension(100, getHeight()));
@@ -0,0 +1,29 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recorded for every repaint of the {@code ActualBoard}. Its duration is the time spent
+ * in {@code paintComponent}.
+ */
+@Name("omok.BoardPaint")
+@Label("Board Paint")
+@Category({"Omok", "User Interface"})
+@Description("One repaint of the game board")
+public class BoardPaintEvent extends Event {
+    @Label("Clip Width")
+    int width;
+
+    @Label("Clip Height")
+    int height;
+
+    @Label("Cells")
+    @Description("Number of board cells inside the clip area")
+    int cells;
+
+    @Label("Tile Size")
+    @Description("Size of a cell on screen at the current zoom, in pixels")
+    int tileSize;
+}
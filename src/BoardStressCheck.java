@@ -0,0 +1,149 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many games at once, each on its own {@code ActualBoard} and thread, and checks that no
+ * game sees another game's stones. Every game places, replaces and removes stones at random and
+ * after each step compares the board with a plain array kept by the game itself: the stone at the
+ * place, the stone count, {@code isFull} and the winning row. Now and then the whole grid and
+ * the index of taken places are compared, the board is cleared, and a short search is run on it.
+ * Exits with status 1 if any check fails.
+ * Usage: java -Djava.awt.headless=true BoardStressCheck [games] [stepsPerGame] [boardSize]
+ */
+public class BoardStressCheck {
+    // Every this many steps the whole board is compared with the expected grid.
+    private static final int FULL_CHECK_INTERVAL = 64;
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int boardSize = args.length > 2 ? Integer.parseInt(args[2]) : ActualBoard.BOARD_SIZE;
+        ExecutorService threads = Executors.newFixedThreadPool(games);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int game = 0; game < games; game++) {
+            long seed = game;
+            results.add(threads.submit(() -> {
+                startGate.await();
+                return playGame(new Random(seed), steps, boardSize);
+            }));
+        }
+
+        long start = System.nanoTime();
+        // Release all games together so they really run at the same time.
+        startGate.countDown();
+        int failedGames = 0;
+        for (int game = 0; game < games; game++) {
+            List<String> failures = results.get(game).get();
+            if (!failures.isEmpty()) {
+                failedGames++;
+                System.out.println("Game " + game + ": " + failures.size() + " failed checks, first: " + failures.get(0));
+            }
+        }
+        threads.shutdown();
+        System.out.printf("%d games x %d steps on %d threads in %.0f ms: %d games failed%n",
+                games, steps, games, (System.nanoTime() - start) / 1e6, failedGames);
+        System.exit(failedGames == 0 ? 0 : 1);
+    }
+
+    // Plays one game of random steps and returns the checks that failed.
+    private static List<String> playGame(Random random, int steps, int boardSize) {
+        ActualBoard board = new ActualBoard(boardSize);
+        PlayerInterface black = new HumanPlayer(Stone.BLACK, "Black");
+        PlayerInterface white = new HumanPlayer(Stone.WHITE, "White");
+        int size = board.sizeBoard();
+        PlayerInterface[][] expected = new PlayerInterface[size][size];
+        int expectedCount = 0;
+        List<String> failures = new ArrayList<>();
+
+        for (int step = 1; step <= steps; step++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            int action = random.nextInt(10);
+            PlayerInterface player;
+            if (action < 6) {
+                player = random.nextBoolean() ? black : white;
+            } else if (action < 9) {
+                player = null;
+            } else {
+                // Replace whatever is there with the other color, or place if it is empty.
+                player = expected[x][y] == black ? white : black;
+            }
+            if (expected[x][y] == null && player != null) {
+                expectedCount++;
+            } else if (expected[x][y] != null && player == null) {
+                expectedCount--;
+            }
+            expected[x][y] = player;
+            board.placeStone(x, y, player);
+
+            check(failures, step, board.playerAt(x, y) == player, "wrong stone at (" + x + ", " + y + ")");
+            check(failures, step, board.stoneCount() == expectedCount,
+                    "stone count " + board.stoneCount() + ", expected " + expectedCount);
+            check(failures, step, board.isFull() == (expectedCount == size * size), "isFull is wrong");
+            if (board.winningRow() != null) {
+                for (ActualBoard.Place place : board.winningRow()) {
+                    check(failures, step, expected[place.x][place.y] == board.getWinner(),
+                            "winning row includes " + place + ", which the winner does not hold");
+                }
+            }
+
+            if (step % FULL_CHECK_INTERVAL == 0) {
+                checkGrid(failures, step, board, expected, expectedCount);
+            }
+            if (step % (FULL_CHECK_INTERVAL * 16) == 0) {
+                checkSearch(failures, step, board, black, white);
+                board.clear();
+                expected = new PlayerInterface[size][size];
+                expectedCount = 0;
+                check(failures, step, board.stoneCount() == 0, "stone count not reset by clear");
+                checkGrid(failures, step, board, expected, expectedCount);
+            }
+        }
+        return failures;
+    }
+
+    // Compares every place of the board, its index of taken places and its search board copy with
+    // the expected grid. A copy of a board too large to search whole holds the stones of a window.
+    private static void checkGrid(List<String> failures, int step, ActualBoard board,
+                                  PlayerInterface[][] expected, int expectedCount) {
+        for (int i = 0; i < expected.length; i++) {
+            for (int j = 0; j < expected.length; j++) {
+                check(failures, step, board.playerAt(i, j) == expected[i][j],
+                        "grid differs at (" + i + ", " + j + ")");
+            }
+        }
+        check(failures, step, board.occupiedPlaces().size() == expectedCount,
+                "index of taken places has " + board.occupiedPlaces().size() + " places");
+        for (ActualBoard.Place place : board.occupiedPlaces()) {
+            check(failures, step, expected[place.x][place.y] != null, "index of taken places includes empty " + place);
+        }
+        int copied = SearchBoard.fromBoard(board).stoneCount();
+        check(failures, step, expected.length <= SearchBoard.MAX_SIZE ? copied == expectedCount : copied <= expectedCount,
+                "search board copy has the wrong number of stones");
+    }
+
+    // Runs a shallow search on the board and checks that it picks an empty place.
+    private static void checkSearch(List<String> failures, int step, ActualBoard board,
+                                    PlayerInterface black, PlayerInterface white) {
+        if (board.isFull()) {
+            return;
+        }
+        ComputerPlayer computer = new ComputerPlayer(Stone.WHITE, board, black, 1 << 16);
+        computer.setMaxDepth(1);
+        int[] move = computer.bestMove();
+        check(failures, step, move != null && board.isEmpty(move[0], move[1]),
+                "search picked an occupied place");
+    }
+
+    private static void check(List<String> failures, int step, boolean ok, String message) {
+        if (!ok) {
+            failures.add("step " + step + ": " + message);
+        }
+    }
+}
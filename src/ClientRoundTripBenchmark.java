@@ -0,0 +1,105 @@
+import com.sun.net.httpserver.HttpServer;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Compares the round trip time of one move request sent the old way, with a new connection per
+ * request, against the pooled {@code JavaClient}, which keeps its connection alive between moves.
+ * By default both talk to a stub server on the loopback interface that answers every request at
+ * once with a fixed move, so the times are the cost of the transport alone. Loopback connections
+ * are nearly free, so the stub mostly shows the overhead of each client; give the base URL of a
+ * real server to see what keeping the connection (and its TLS session) alive saves.
+ * Usage: java ClientRoundTripBenchmark [requests] [baseUrl]
+ */
+public class ClientRoundTripBenchmark {
+    private static final String MOVE_RESPONSE = "{\"response\":true,\"pid\":\"bench\",\"move\":{\"x\":7,\"y\":7}}";
+
+    public static void main(String[] args) throws IOException {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        HttpServer server = null;
+        String baseUrl;
+        if (args.length > 1) {
+            baseUrl = args[1];
+            trustAllCertificates();
+        } else {
+            // Send small responses right away instead of waiting for the client's ACK.
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", exchange -> {
+                byte[] body = MOVE_RESPONSE.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        }
+        String path = "play/?pid=bench&x=7&y=8";
+
+        JavaClient client = new JavaClient(baseUrl, JavaClient.DEFAULT_CONNECT_TIMEOUT, JavaClient.DEFAULT_READ_TIMEOUT);
+        // Warm up both clients so the JIT and class loading do not count against either.
+        for (int i = 0; i < requests / 4; i++) {
+            sendWithNewConnection(baseUrl + path);
+            client.sendGet(path);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            sendWithNewConnection(baseUrl + path);
+        }
+        long perConnection = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            client.sendGet(path);
+        }
+        long pooled = System.nanoTime() - start;
+
+        System.out.println("Server: " + baseUrl);
+        System.out.println("Requests: " + requests);
+        System.out.printf("%-24s %10s%n", "transport", "us/move");
+        System.out.printf("%-24s %10.1f%n", "connection per request", perConnection / 1e3 / requests);
+        System.out.printf("%-24s %10.1f%n", "pooled JavaClient", pooled / 1e3 / requests);
+        if (server != null) {
+            server.stop(0);
+        }
+        System.exit(0);
+    }
+
+    // Makes the old transport accept any server certificate, as the old JavaClient did.
+    private static void trustAllCertificates() {
+        try {
+            SSLContext sc = SSLContext.getInstance("TLS");
+            sc.init(null, new TrustManager[]{new NaiveTrustManager()}, new java.security.SecureRandom());
+            HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Sends one request the way JavaClient used to: a fresh connection that is closed afterwards.
+    private static String sendWithNewConnection(String url) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+        con.setRequestProperty("Connection", "close");
+        con.setConnectTimeout((int) Duration.ofSeconds(5).toMillis());
+        con.setReadTimeout((int) Duration.ofSeconds(10).toMillis());
+        try (InputStream in = con.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            con.disconnect();
+        }
+    }
+}
@@ -1,22 +1,124 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *  Represents a computer-controlled player, with methods for choosing
  * moves based on the game state
  */
-public class ComputerPlayer extends PlayerInterface {
+public class ComputerPlayer extends PlayerInterface implements Engine {
     private final ActualBoard actualBoard;
-    private static final int MAX_DEPTH = 2;
+    // Search limits used unless they are changed with the setters.
+    public static final int DEFAULT_MAX_DEPTH = 20;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+    // How many nodes are searched between two looks at the clock.
+    private static final int BUDGET_CHECK_INTERVAL = 1024;
+    // Memory cap used for the transposition table when none is given.
+    public static final long DEFAULT_TT_BYTES = 16L * 1024 * 1024;
+    // Set -Domok.orderingStats=true to print, after every search, how often the first move
+    // searched at a node was the one that caused the cutoff.
+    private static final boolean PRINT_ORDERING_STATS = Boolean.getBoolean("omok.orderingStats");
+    // Move ordering stages of orderedMoves, searched highest first after the transposition table move.
+    private static final long STAGE_WIN = 5;
+    private static final long STAGE_BLOCK = 4;
+    private static final long STAGE_THREAT = 3;
+    private static final long STAGE_KILLER = 2;
+    private static final long STAGE_QUIET = 1;
+    // Threat scores at which a move wins, or makes at least an open three or a four.
+    private static final int WIN_SCORE = LinePatterns.scoreOf(LinePatterns.FIVE);
+    private static final int THREAT_SCORE = LinePatterns.scoreOf(LinePatterns.OPEN_THREE);
+    // Ordering keys hold the stage, then the rank within the stage, then the move.
+    private static final int STAGE_SHIFT = 56;
+    private static final int RANK_SHIFT = 20;
+    // Quiet moves are ranked by history score, then by threat priority, which is below
+    // 2 * THREAT_SCORE for them and fits in the low bits of the rank.
+    private static final int PRIORITY_BITS = 12;
+    private static final int MAX_HISTORY = (1 << 24) - 1;
+    private static final int[] NO_KILLERS = {-1, -1};
     private final Stone stoneType;
-    private final PlayerInterface me;
     private final PlayerInterface opponent;
+    private final int me;
+    private final int opponentColor;
+    // Bitboard snapshot of the game board that the search places and removes stones on.
+    private SearchBoard board;
+    // Positions already searched, kept between sibling branches and between calls to bestMove.
+    private final TranspositionTable transpositionTable;
+    private long nodesSearched = 0;
+    // Interior nodes whose moves were searched, and how many of them stopped early on a cutoff.
+    private long expandedNodes = 0;
+    private long cutoffs = 0;
+    // Cutoffs caused by the first move searched at the node.
+    private long firstMoveCutoffs = 0;
+    // Quiet moves that caused a cutoff, two per ply, and per color and position a history score
+    // that grows with every cutoff the move causes. Killers are cleared for every search; the
+    // history is halved, so it favors what worked in recent searches.
+    private int[][] killers = new int[0][];
+    private int[][] history = new int[2][0];
+    // Limits for one call to bestMove. The search stops at whichever is reached first.
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+    private long nodeBudget = Long.MAX_VALUE;
+    private boolean searchAborted;
+    // False while the first iteration runs, which must finish whatever the budget.
+    private boolean abortable;
+    private int depthReached = 0;
+    // State shared with the worker copies during a parallel search: the stop signal raised by
+    // whichever thread notices the budget ran out, the total node count of all threads, and the
+    // time the search must stop by, which a ponder hit can move from another thread.
+    private final AtomicBoolean stopSignal;
+    private final AtomicLong totalNodes;
+    private final AtomicLong deadline;
+    // Number of threads the root moves are split across, and the workers and pool that run them.
+    private int threads = 1;
+    private ComputerPlayer[] workers = new ComputerPlayer[0];
+    private ForkJoinPool pool;
+    // Set from another thread to stop the current search; see cancel().
+    private volatile boolean cancelled;
+    private ProgressListener progressListener;
+    // Known good moves for early positions, tried before any search, and the random generator
+    // that picks among them by weight; see setOpeningBook.
+    private OpeningBook openingBook = OpeningBook.getDefault();
+    private final Random bookRandom = new Random();
+    // Looks for a forced win by fours and threes before the main search; see setThreatNodeBudget.
+    private final ThreatSearch threatSearch = new ThreatSearch(ThreatSearch.DEFAULT_NODE_BUDGET);
+    private long threatNodeBudget = ThreatSearch.DEFAULT_NODE_BUDGET;
+    // Scores leaf positions; see setEvaluator.
+    private Evaluator evaluator = PATTERN_EVALUATOR;
     private int[]lastMove = {0, 0};
+    // Pondering: searching, while the opponent thinks, the position their predicted reply
+    // would lead to. The state is changed from the game's thread and the search thread, so it
+    // is guarded by ponderLock, together with the start time of the current search.
+    private static final int PONDER_OFF = 0;
+    private static final int PONDER_PENDING = 1;
+    private static final int PONDER_ON = 2;
+    private static final int PONDER_HIT = 3;
+    private static final int PONDER_STOPPED = 4;
+    private final Object ponderLock = new Object();
+    private int ponderState = PONDER_OFF;
+    private long searchStart;
+    // Set by ponder on the search thread for the search it is about to run.
+    private boolean ponderRequested;
+    // Searches announced on the game's thread by beginSearch and beginPonder are numbered in
+    // order. A cancel reaches every search announced so far, even one that has not started;
+    // ponderState belongs to the last ponder search announced; and the search about to run
+    // gives its number, or 0 if it was not announced. Also guarded by ponderLock.
+    private long announcedSearches = 0;
+    private long lastCancelledSearch = 0;
+    private long ponderSearch = 0;
+    private long requestedSearch = 0;
 
     /**
      * Constructs an AIPlayer instance for a game, initializing it with the specified stone type, game board,
-     * and opponent. The AIPlayer is also associated with a 'me' player, which is a representation of the
-     * AI itself in the game, created as a HumanPlayer instance.
+     * and opponent. The search works on {@code SearchBoard} colors, so the AI's own color ('me') and the
+     * opponent's color are resolved here from their stone types.
      *
      * @param stoneType    the type of stone that the AI player will use in the game.
      * @param currentActualBoard the current state of the game board.
@@ -24,20 +126,66 @@ public class ComputerPlayer extends PlayerInterface {
      */
 
     public ComputerPlayer(Stone stoneType, ActualBoard currentActualBoard, PlayerInterface opponent) {
+        this(stoneType, currentActualBoard, opponent, DEFAULT_TT_BYTES);
+    }
+
+    /**
+     * Constructs an AIPlayer instance whose transposition table uses at most the given number of bytes.
+     *
+     * @param stoneType          the type of stone that the AI player will use in the game.
+     * @param currentActualBoard the current state of the game board.
+     * @param opponent           the opponent player against whom the AI is playing.
+     * @param ttBytes            the memory cap for the transposition table, in bytes.
+     */
+    public ComputerPlayer(Stone stoneType, ActualBoard currentActualBoard, PlayerInterface opponent, long ttBytes) {
         super("Computer", stoneType);
         this.stoneType = stoneType;
         this.opponent = opponent;
         this.actualBoard = currentActualBoard;
-        this.me = new HumanPlayer(stoneType, "Computer");
+        this.me = SearchBoard.colorOf(stoneType);
+        this.opponentColor = 1 - me;
+        this.transpositionTable = new TranspositionTable(ttBytes);
+        this.stopSignal = new AtomicBoolean();
+        this.totalNodes = new AtomicLong();
+        this.deadline = new AtomicLong();
+    }
+
+    /**
+     * Constructs a worker for a parallel search. The worker gets its own search board and node
+     * count but shares the transposition table, stop signal and node total with its parent.
+     *
+     * @param parent the computer player that owns the search.
+     */
+    private ComputerPlayer(ComputerPlayer parent) {
+        super(parent.getName(), parent.stoneType);
+        this.stoneType = parent.stoneType;
+        this.opponent = parent.opponent;
+        this.actualBoard = parent.actualBoard;
+        this.me = parent.me;
+        this.opponentColor = parent.opponentColor;
+        this.transpositionTable = parent.transpositionTable;
+        this.stopSignal = parent.stopSignal;
+        this.totalNodes = parent.totalNodes;
+        this.deadline = parent.deadline;
     }
 
     /**
      * Determines the best move for the player based on the current state of the game board.
-     * The method first checks for any immediate winning moves using {@code checkImmediateMoves}.
-     * If an immediate winning move is found, it is returned. Otherwise, the method evaluates
+     * A position found in the opening book is answered with a book move without searching.
+     * Otherwise, the method first checks for any immediate winning moves using {@code checkImmediateMoves}.
+     * If an immediate winning move is found, it is returned. Next a {@code ThreatSearch} looks
+     * for a forced win by fours and threes, which can be far deeper than the main search goes;
+     * if it finds one, its first move is returned. Otherwise, the method evaluates
      * potential moves using the {@code getPossibleMoves} method and assesses their scores
-     * through the {@code minimax} method. It also checks if any move creates a winning opportunity
-     * directly, without going deeper into the minimax tree.
+     * through the {@code minimax} method, searching one ply deeper on every iteration until the
+     * time budget, node budget or maximum depth is reached. The move returned is the best move of
+     * the last iteration that finished; an iteration cut short by the budget is thrown away. The
+     * best move of each iteration is searched first in the next one, and the transposition table
+     * supplies the rest of the principal variation. The search runs on a {@code SearchBoard}
+     * copy of the game board, so the game board itself is never modified. With more than one
+     * thread, iterations after the first split the root moves across the threads. On a game
+     * board larger than {@code SearchBoard.MAX_SIZE}, the copy is a window around the stones
+     * (see {@code SearchBoard.fromBoard}), and the move is given in game board coordinates.
      *
      * @return an integer array containing the coordinates [x, y] of the best move determined.
      *         If no move is found to improve the position, it returns the coordinates of a default move.
@@ -45,45 +193,511 @@ public class ComputerPlayer extends PlayerInterface {
      */
 
     public int[] bestMove() {
+        SearchBoard position = SearchBoard.fromBoard(actualBoard);
+        int[] move = bestMove(position);
+        if (move == null) {
+            return null;
+        }
+        lastMove = new int[]{move[0] + position.originX(), move[1] + position.originY()};
+        return lastMove;
+    }
+
+    /**
+     * Determines the best move for a snapshot of the game board, as {@code bestMove()} does for
+     * the current game board. This lets the search run on another thread while the game board
+     * stays with the user interface. The search can be stopped early with {@code cancel}.
+     *
+     * @param position the position to search; it is searched in place and restored afterwards.
+     * @return the coordinates [x, y] of the best move, or null if the search was cancelled.
+     */
+    @Override
+    public int[] bestMove(SearchBoard position) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long probes = transpositionTable.getProbes();
+        long hits = transpositionTable.getHits();
+
+        int[] move = searchBestMove(position);
 
+        long elapsed = System.nanoTime() - start;
+        probes = transpositionTable.getProbes() - probes;
+        hits = transpositionTable.getHits() - hits;
+        SearchStats.getInstance().record(elapsed, getNodesSearched(), getCutoffs(), getExpandedNodes(),
+                depthReached, probes, hits);
+        if (PRINT_ORDERING_STATS) {
+            System.out.printf("Search to depth %d: %d nodes, %d cutoffs, %.1f%% of them on the first move%n",
+                    depthReached, getNodesSearched(), getCutoffs(), 100 * getFirstMoveCutoffRate());
+        }
+        if (event.shouldCommit()) {
+            event.depth = depthReached;
+            event.nodes = getNodesSearched();
+            event.cutoffs = getCutoffs();
+            event.firstMoveCutoffRate = getFirstMoveCutoffRate();
+            event.branchingFactor = getBranchingFactor();
+            event.ttHitRate = probes == 0 ? 0.0 : (double) hits / probes;
+            event.threads = threads;
+            event.cancelled = move == null;
+            event.commit();
+        }
+        return move;
+    }
+
+    // The body of bestMove(SearchBoard), without the statistics and the JFR event.
+    private int[] searchBestMove(SearchBoard position) {
+        board = position;
+        transpositionTable.newSearch();
+        nodesSearched = 0;
+        expandedNodes = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        resetOrdering(maxDepth);
+        depthReached = 0;
+        searchAborted = false;
+        abortable = false;
+        totalNodes.set(0);
+        synchronized (ponderLock) {
+            // A search cancelled before it started does not start.
+            cancelled = requestedSearch != 0 && requestedSearch <= lastCancelledSearch;
+            stopSignal.set(cancelled);
+            searchStart = System.nanoTime();
+            deadline.set(budgetDeadline(searchStart));
+            if (ponderRequested) {
+                ponderRequested = false;
+                if (requestedSearch != ponderSearch) {
+                    // A newer ponder search was announced; the state is that one's.
+                    cancelled = true;
+                    stopSignal.set(true);
+                } else {
+                    if (ponderState == PONDER_PENDING && !cancelled) {
+                        // No time limit until the opponent's move shows whether the guess was right.
+                        ponderState = PONDER_ON;
+                        deadline.set(Long.MAX_VALUE);
+                    } else if (ponderState == PONDER_STOPPED) {
+                        cancelled = true;
+                        stopSignal.set(true);
+                    }
+                    if (ponderState != PONDER_ON) {
+                        ponderState = PONDER_OFF;
+                    }
+                }
+            }
+            requestedSearch = 0;
+        }
+        if (cancelled) {
+            return null;
+        }
+
+        int[] move = chooseMove();
+        if (move != null) {
+            lastMove = move;
+        }
+        return move;
+    }
+
+    // Chooses the move of a search that has started: a book move, an immediate win or block,
+    // a forced win, or else the result of iterative deepening; null if it was cancelled.
+    private int[] chooseMove() {
+        prepareWorkers();
+
+        if (openingBook != null) {
+            int[] bookMove = openingBook.probe(board, me, bookRandom);
+            if (bookMove != null) {
+                return bookMove;
+            }
+        }
         int[] immediateMove = checkImmediateMoves();
         if (immediateMove != null) {
             return immediateMove;
         }
-        int bestScore = Integer.MIN_VALUE;
         int[] bestMove = new int[2];
 
         List<int[]> possibleMoves = getPossibleMoves();
-        for (int[] move : possibleMoves) {
-            int i = move[0];
-            int j = move[1];
-
-            if (createsWinningOpportunity(i, j, 1, 0, me) ||
-                    createsWinningOpportunity(i, j, 0, 1, me) ||
-                    createsWinningOpportunity(i, j, 1, 1, me) ||
-                    createsWinningOpportunity(i, j, -1, 1, me)) {
-                return new int[]{i, j};
+        if (threatNodeBudget > 0) {
+            int[] forcedWin = threatSearch.findWin(board, me);
+            if (forcedWin != null) {
+                return forcedWin;
+            }
+        }
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int[] iterationBest = threads > 1 && depth > 1
+                    ? searchRootParallel(possibleMoves, depth)
+                    : searchRoot(possibleMoves, depth);
+            if (searchAborted) {
+                break;
+            }
+            if (iterationBest != null) {
+                bestMove = iterationBest;
+                // Principal variation first in the next iteration.
+                possibleMoves.remove(iterationBest);
+                possibleMoves.add(0, iterationBest);
             }
+            depthReached = depth;
+            abortable = true;
+            if (progressListener != null) {
+                progressListener.searchProgress(depth, getNodesSearched());
+            }
+            if (isOverBudget()) {
+                break;
+            }
+        }
+        return cancelled ? null : bestMove;
+    }
+
+    // Returns the time by which a search that started at the given time must stop.
+    private long budgetDeadline(long start) {
+        return timeBudgetMillis >= Long.MAX_VALUE / 1_000_000L
+                ? Long.MAX_VALUE
+                : start + timeBudgetMillis * 1_000_000L;
+    }
+
+    /**
+     * Guesses the opponent's reply in a position where it is their move, for pondering: the
+     * best move the last search found for them there, if the transposition table still holds
+     * it, or else the position with their highest {@code threatPriority}. Must not be called while a
+     * search is running.
+     *
+     * @param position the position, with the opponent to move.
+     * @return the coordinates [x, y] of the predicted reply, or null if there is no move.
+     */
+    public int[] predictReply(SearchBoard position) {
+        board = position;
+        int size = board.size();
+        long entry = transpositionTable.probe(board.hash() ^ SearchBoard.SIDE_KEY);
+        if (entry != TranspositionTable.MISS) {
+            int move = TranspositionTable.moveOf(entry);
+            if (move >= 0 && move < size * size && board.isEmpty(move / size, move % size)) {
+                return new int[]{move / size, move % size};
+            }
+        }
+        int[] candidates = new int[board.candidateCount()];
+        int count = board.candidateMoves(candidates);
+        int best = -1;
+        int bestPriority = Integer.MIN_VALUE;
+        for (int c = 0; c < count; c++) {
+            int priority = threatPriority(candidates[c] / size, candidates[c] % size, opponentColor);
+            if (priority > bestPriority) {
+                best = candidates[c];
+                bestPriority = priority;
+            }
+        }
+        return best < 0 ? null : new int[]{best / size, best % size};
+    }
 
-            actualBoard.placeStone(i, j, me);
-            int score = minimax(MAX_DEPTH, opponent, Integer.MIN_VALUE, Integer.MAX_VALUE);
-            actualBoard.placeStone(i, j, null);
+    /**
+     * Announces a search. Call this on the game's thread before handing {@code bestMove} to the
+     * search thread, so that a {@code cancel} made before the search has started still stops it.
+     *
+     * @return the number of the search, to pass to {@code bestMove(SearchBoard, long)}.
+     */
+    @Override
+    public long beginSearch() {
+        synchronized (ponderLock) {
+            return ++announcedSearches;
+        }
+    }
 
-            if (score > bestScore) {
+    /**
+     * Determines the best move for a search announced with {@code beginSearch}. It returns null
+     * at once if the search was cancelled before it started.
+     *
+     * @param position the position to search; it is searched in place and restored afterwards.
+     * @param search   the number beginSearch returned.
+     * @return the coordinates [x, y] of the best move, or null if the search was cancelled.
+     */
+    @Override
+    public int[] bestMove(SearchBoard position, long search) {
+        synchronized (ponderLock) {
+            requestedSearch = search;
+        }
+        return bestMove(position);
+    }
+
+    /**
+     * Announces a ponder search. Call this on the game's thread before handing {@code ponder}
+     * to the search thread, so that {@code ponderHit} and {@code stopPondering} work even if
+     * the opponent moves before the search has started. From then on they apply to this
+     * search, even while an earlier one is still finishing.
+     *
+     * @return the number of the ponder search, to pass to {@code ponder}.
+     */
+    public long beginPonder() {
+        synchronized (ponderLock) {
+            ponderSearch = ++announcedSearches;
+            ponderState = PONDER_PENDING;
+            return ponderSearch;
+        }
+    }
+
+    // Whether a ponder search is running with no time limit, waiting for the opponent's move.
+    boolean isPondering() {
+        synchronized (ponderLock) {
+            return ponderState == PONDER_ON;
+        }
+    }
+
+    /**
+     * Searches the position the opponent's predicted reply leads to, on the calling thread, with
+     * no time limit. The search goes on until {@code ponderHit}, after which it gets the rest of
+     * the time budget counted from its start, or until {@code stopPondering}, after which it
+     * returns null. Either way the transposition table keeps what the search found. After a hit
+     * before the search started, it is an ordinary search; after a stop, it does not search.
+     *
+     * @param position the position after our last move; it is searched in place and restored afterwards.
+     * @param reply    the predicted reply of the opponent, [x, y].
+     * @param search   the number beginPonder returned.
+     * @return our best move after the reply, or null if pondering was stopped.
+     */
+    public int[] ponder(SearchBoard position, int[] reply, long search) {
+        position.place(reply[0], reply[1], opponentColor);
+        synchronized (ponderLock) {
+            ponderRequested = true;
+            requestedSearch = search;
+        }
+        try {
+            return bestMove(position);
+        } finally {
+            position.remove(reply[0], reply[1], opponentColor);
+            // Only while the state is still this search's: a newer ponder search may already
+            // have been announced while this one was finishing.
+            synchronized (ponderLock) {
+                if (ponderSearch == search) {
+                    ponderState = PONDER_OFF;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells a ponder search that the opponent played the predicted reply, so that it finishes as
+     * an ordinary search. The time the search has spent so far counts against the time budget,
+     * so after a long think by the opponent the move comes almost at once.
+     */
+    public void ponderHit() {
+        synchronized (ponderLock) {
+            if (ponderState == PONDER_PENDING) {
+                ponderState = PONDER_HIT;
+            } else if (ponderState == PONDER_ON) {
+                ponderState = PONDER_OFF;
+                deadline.set(budgetDeadline(searchStart));
+            }
+        }
+    }
+
+    /**
+     * Tells a ponder search that the opponent played something else, so that it stops and
+     * returns null. What it found stays in the transposition table for the next search.
+     */
+    public void stopPondering() {
+        synchronized (ponderLock) {
+            if (ponderState == PONDER_PENDING) {
+                ponderState = PONDER_STOPPED;
+            } else if (ponderState == PONDER_ON) {
+                ponderState = PONDER_OFF;
+                cancel();
+            }
+        }
+    }
+
+    /**
+     * Stops a search that is running on another thread. {@code bestMove} then returns null as
+     * soon as the search notices, which is within a few thousand nodes. Searches announced with
+     * {@code beginSearch} or {@code beginPonder} that have not started yet return null at once.
+     */
+    @Override
+    public void cancel() {
+        synchronized (ponderLock) {
+            lastCancelledSearch = announcedSearches;
+            cancelled = true;
+            stopSignal.set(true);
+        }
+    }
+
+    @Override
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Scores a position for the search. Evaluators are called at every leaf, so they should read
+     * the scores the search board keeps up to date rather than scan the board.
+     */
+    public interface Evaluator {
+        /**
+         * @param board the position to score.
+         * @param color the color the score is for.
+         * @return the score; higher is better for {@code color}.
+         */
+        int evaluate(SearchBoard board, int color);
+    }
+
+    // The default evaluator: our pattern score minus the opponent's.
+    public static final Evaluator PATTERN_EVALUATOR = (board, color) -> board.score(color) - board.score(1 - color);
+
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Runs one iteration of the search: every root move is played and scored with {@code minimax}
+     * to the given total depth. Root moves use the best score so far as alpha, so a move that
+     * cannot beat it is refuted as soon as possible. The first iteration always completes so that
+     * there is a move to return; later ones stop when the budget runs out.
+     *
+     * @param possibleMoves the root moves, in the order they should be searched.
+     * @param depth         the number of plies to search, including the root move.
+     * @return the best root move of this iteration, or null if there are no moves.
+     */
+    private int[] searchRoot(List<int[]> possibleMoves, int depth) {
+        expandedNodes++;
+        int bestScore = Integer.MIN_VALUE;
+        int[] bestMove = null;
+        for (int[] move : possibleMoves) {
+            board.place(move[0], move[1], me);
+            int score = minimax(depth - 1, 1, opponentColor, bestScore, Integer.MAX_VALUE);
+            board.remove(move[0], move[1], me);
+            if (searchAborted) {
+                return null;
+            }
+            if (bestMove == null || score > bestScore) {
                 bestScore = score;
-                bestMove[0] = i;
-                bestMove[1] = j;
+                bestMove = move;
             }
         }
-        lastMove = bestMove;
         return bestMove;
     }
 
     /**
-     * Scans the game board to identify any immediate winning moves for either the player or the opponent.
-     * This method iterates through each position on the board, checking if it is empty, and then
-     * determines if placing a stone at that position would result in a win for either the player ('me')
-     * or the opponent. The check is done using the {@code isWinningMove} method.
+     * Runs one iteration of the search with the root moves split across the worker threads.
+     * The first root move, the best one of the previous iteration, is searched here first to
+     * get a good alpha. Each worker then takes the next unsearched root move until none are
+     * left, searching it on its own copy of the board. The best score found so far is shared,
+     * so every worker starts a root move with the tightest alpha known at that moment.
+     *
+     * @param possibleMoves the root moves, in the order they should be searched.
+     * @param depth         the number of plies to search, including the root move.
+     * @return the best root move of this iteration, or null if the budget ran out.
+     */
+    private int[] searchRootParallel(List<int[]> possibleMoves, int depth) {
+        expandedNodes++;
+        // No moves: like the sequential root, report no best move rather than fail.
+        if (possibleMoves.isEmpty()) {
+            return null;
+        }
+        int[] first = possibleMoves.get(0);
+        board.place(first[0], first[1], me);
+        int firstScore = minimax(depth - 1, 1, opponentColor, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        board.remove(first[0], first[1], me);
+        if (searchAborted) {
+            return null;
+        }
+
+        int[] scores = new int[possibleMoves.size()];
+        boolean[] exact = new boolean[possibleMoves.size()];
+        scores[0] = firstScore;
+        exact[0] = true;
+        AtomicInteger sharedAlpha = new AtomicInteger(firstScore);
+        AtomicInteger nextMove = new AtomicInteger(1);
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (ComputerPlayer worker : workers) {
+            tasks.add(() -> {
+                int k;
+                while ((k = nextMove.getAndIncrement()) < possibleMoves.size()) {
+                    int[] move = possibleMoves.get(k);
+                    int alpha = sharedAlpha.get();
+                    worker.board.place(move[0], move[1], me);
+                    int score = worker.minimax(depth - 1, 1, opponentColor, alpha, Integer.MAX_VALUE);
+                    worker.board.remove(move[0], move[1], me);
+                    if (worker.searchAborted) {
+                        return null;
+                    }
+                    scores[k] = score;
+                    exact[k] = score > alpha;
+                    sharedAlpha.accumulateAndGet(score, Math::max);
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            searchAborted = true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel search failed", e.getCause());
+        }
+        if (stopSignal.get()) {
+            searchAborted = true;
+            return null;
+        }
+
+        // Highest score wins; on a tie a true score beats a bound, then the earlier move wins.
+        int best = 0;
+        for (int k = 1; k < scores.length; k++) {
+            if (scores[k] > scores[best] || (scores[k] == scores[best] && exact[k] && !exact[best])) {
+                best = k;
+            }
+        }
+        return possibleMoves.get(best);
+    }
+
+    /**
+     * Creates the worker copies and thread pool for a parallel search if the thread count
+     * changed, and gives every worker a fresh copy of the search board. A sequential search
+     * has no workers.
+     */
+    private void prepareWorkers() {
+        int workerCount = threads > 1 ? threads : 0;
+        if (workers.length != workerCount) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+            workers = new ComputerPlayer[workerCount];
+            for (int t = 0; t < workerCount; t++) {
+                workers[t] = new ComputerPlayer(this);
+            }
+            if (workerCount > 0) {
+                pool = new ForkJoinPool(workerCount);
+            }
+        }
+        for (ComputerPlayer worker : workers) {
+            worker.board = new SearchBoard(board);
+            worker.nodesSearched = 0;
+            worker.expandedNodes = 0;
+            worker.cutoffs = 0;
+            worker.firstMoveCutoffs = 0;
+            worker.resetOrdering(maxDepth);
+            worker.searchAborted = false;
+            worker.abortable = true;
+            worker.nodeBudget = nodeBudget;
+            worker.evaluator = evaluator;
+        }
+    }
+
+    /**
+     * Checks whether this call to {@code bestMove} has used up its time or node budget, or has
+     * been cancelled. Depth 1 is never cut short by the budget, so that a move is always known.
+     */
+    private boolean isOverBudget() {
+        if (cancelled) {
+            return true;
+        }
+        if (!abortable) {
+            return false;
+        }
+        return totalNodes.get() >= nodeBudget || System.nanoTime() >= deadline.get();
+    }
+
+    /**
+     * Looks for any immediate winning moves for either the player or the opponent. A five can only
+     * be completed next to a stone, so only the candidate moves of the search board are checked,
+     * whatever the size of the board, to see whether placing a stone there would result in a win
+     * for either the player ('me') or the opponent. The check is done using the {@code isWinningMove} method.
      *
      * @return an integer array containing the coordinates [x, y] of an immediate winning move, if any.
      *         The move is prioritized for the player ('me') first and then for the opponent.
@@ -91,19 +705,21 @@ public class ComputerPlayer extends PlayerInterface {
      */
 
     private int[] checkImmediateMoves() {
-        for (int i = 0; i < actualBoard.sizeBoard(); i++) {
-            for (int j = 0; j < actualBoard.sizeBoard(); j++) {
-                if (actualBoard.isEmpty(i, j)) {
-                    if (isWinningMove(i, j, me)) {
-                        return new int[]{i, j};
-                    }
-                    if (isWinningMove(i, j, opponent)) {
-                        return new int[]{i, j};
-                    }
-                }
+        int size = board.size();
+        int[] candidates = new int[board.candidateCount()];
+        int count = board.candidateMoves(candidates);
+        int[] block = null;
+        for (int c = 0; c < count; c++) {
+            int x = candidates[c] / size;
+            int y = candidates[c] % size;
+            if (isWinningMove(x, y, me)) {
+                return new int[]{x, y};
+            }
+            if (block == null && isWinningMove(x, y, opponentColor)) {
+                block = new int[]{x, y};
             }
         }
-        return null;
+        return block;
     }
 
     /**
@@ -114,11 +730,11 @@ public class ComputerPlayer extends PlayerInterface {
      *
      * @param x       the x-coordinate where the stone is to be placed.
      * @param y       the y-coordinate where the stone is to be placed.
-     * @param player  the player for whom the move is being checked.
+     * @param player  the color of the player for whom the move is being checked.
      * @return        true if placing a stone at (x, y) for the specified player results in a win;
      *                false otherwise.
      */
-    private boolean isWinningMove(int x, int y, PlayerInterface player) {
+    private boolean isWinningMove(int x, int y, int player) {
         return createsWinningOpportunity(x, y, 1, 0, player) ||  // Horizontal
                 createsWinningOpportunity(x, y, 0, 1, player) ||  // Vertical
                 createsWinningOpportunity(x, y, 1, 1, player) ||  // Diagonal (down-right)
@@ -128,8 +744,10 @@ public class ComputerPlayer extends PlayerInterface {
     /**
      * Generates a list of all possible moves on the game board based on the current state.
      * A possible move is defined as an empty position on the board that is near an existing stone.
-     * This method iterates through each position on the board, checking if it is both empty and
-     * adjacent to at least one stone, as determined by the {@code isNearStone} method.
+     * The search board keeps these positions up to date as stones are placed and removed (see
+     * {@code SearchBoard.candidateMoves}), so no scan of the board is needed. On an empty board
+     * the only move considered is the center. The moves are sorted by {@code threatPriority},
+     * strongest first.
      *
      * @return  a list of integer arrays, where each array represents the coordinates of a possible move
      *          in the format [x, y]. If no moves are possible, return an empty list.
@@ -137,48 +755,33 @@ public class ComputerPlayer extends PlayerInterface {
 
     private List<int[]> getPossibleMoves() {
         List<int[]> moves = new ArrayList<>();
-        for (int i = 0; i < actualBoard.sizeBoard(); i++) {
-            for (int j = 0; j < actualBoard.sizeBoard(); j++) {
-                if (actualBoard.isEmpty(i, j) && isNearStone(i, j)) {
-                    moves.add(new int[]{i, j});
-                }
-            }
+        int size = board.size();
+        if (board.stoneCount() == 0) {
+            moves.add(new int[]{size / 2, size / 2});
+            return moves;
         }
-        return moves;
-    }
-
-    /**
-     * Checks if there is a stone placed within a specified distance from a given position on the board.
-     * The method iterates through a square area centered on the given coordinates (x, y),
-     * with a side length of two * distance + 1, to determine if any adjacent positions are occupied.
-     *
-     * @param x  the x-coordinate of the position to check around.
-     * @param y  the y-coordinate of the position to check around.
-     * @return   true if there is at least one stone within the specified distance from the position (x, y);
-     *           false otherwise.
-     */
-
-    private boolean isNearStone(int x, int y) {
-        int distance = 2;
-        for (int i = -distance; i <= distance; i++) {
-            for (int j = -distance; j <= distance; j++) {
-                if (x + i >= 0 && x + i < actualBoard.sizeBoard() && y + j >= 0 && y + j < actualBoard.sizeBoard()) {
-                    if (!actualBoard.isEmpty(x + i, y + j)) {
-                        return true;
-                    }
-                }
-            }
+        int[] candidates = new int[board.candidateCount()];
+        int count = board.candidateMoves(candidates);
+        for (int c = 0; c < count; c++) {
+            moves.add(new int[]{candidates[c] / size, candidates[c] % size});
         }
-        return false;
+        moves.sort((a, b) -> Integer.compare(threatPriority(b[0], b[1], me), threatPriority(a[0], a[1], me)));
+        return moves;
     }
 
     /**
      * Implements the minimax algorithm with alpha-beta pruning for a two-player game.
      * This method recursively calculates the optimal move for the current player at a given
-     * depth of the game tree.
+     * depth of the game tree. Leaves are scored directly, since the evaluation is already kept
+     * up to date by the search board. Every other position is looked up in the transposition table first:
+     * a stored score that was searched at least as deep either answers the node directly or
+     * narrows the alpha-beta window, and a stored best move is tried before the others (see
+     * {@code orderedMoves}). The result is stored back with the kind of bound it represents, and
+     * a quiet move that caused a cutoff is remembered as a killer move for the ply and in the history.
      *
      * @param depth   the depth of the game tree to explore. A depth of 0 indicates the leaf nodes.
-     * @param player  the current player for whom the move is being calculated.
+     * @param ply     the number of moves played since the root.
+     * @param player  the color of the current player for whom the move is being calculated.
      * @param alpha   the "alpha" value in alpha-beta pruning, representing the best already
      *                explored option along the path to the root for the maximizer.
      * @param beta    the "beta" value in alpha-beta pruning, representing the best already
@@ -187,74 +790,231 @@ public class ComputerPlayer extends PlayerInterface {
      *                favorable for the 'me' player and a low value for the 'opponent'.
      */
 
-    private int minimax(int depth, PlayerInterface player, int alpha, int beta) {
-        if (depth == 0 || actualBoard.isFull() || actualBoard.isWonBy(opponent) || actualBoard.isWonBy(me)) {
+    private int minimax(int depth, int ply, int player, int alpha, int beta) {
+        nodesSearched++;
+        if (nodesSearched % BUDGET_CHECK_INTERVAL == 0) {
+            totalNodes.addAndGet(BUDGET_CHECK_INTERVAL);
+            if (isOverBudget()) {
+                stopSignal.set(true);
+            }
+            searchAborted = stopSignal.get();
+        }
+        if (searchAborted) {
+            return 0;
+        }
+        if (depth == 0 || board.isFull() || board.winner() != SearchBoard.EMPTY) {
             return evaluateBoard();
         }
 
-        if (player.equals(me)) {
-            int maxEval = Integer.MIN_VALUE;
-            for (int i = 0; i < actualBoard.sizeBoard(); i++) {
-                for (int j = 0; j < actualBoard.sizeBoard(); j++) {
-                    if (actualBoard.isEmpty(i, j)) {
-                        actualBoard.placeStone(i, j, me);
-                        int eval = minimax(depth - 1, opponent, alpha, beta);
-                        actualBoard.placeStone(i, j, null); // Undo the move
-                        maxEval = Math.max(maxEval, eval);
-                        alpha = Math.max(alpha, eval);
-                        if (beta <= alpha) {
-                            break;
-                        }
-                    }
+        long key = player == me ? board.hash() : board.hash() ^ SearchBoard.SIDE_KEY;
+        int alphaOriginal = alpha;
+        int betaOriginal = beta;
+        int ttMove = -1;
+
+        long entry = transpositionTable.probe(key);
+        if (entry != TranspositionTable.MISS) {
+            ttMove = TranspositionTable.moveOf(entry);
+            if (TranspositionTable.depthOf(entry) >= depth) {
+                int ttScore = TranspositionTable.scoreOf(entry);
+                int bound = TranspositionTable.boundOf(entry);
+                if (bound == TranspositionTable.EXACT) {
+                    return ttScore;
+                } else if (bound == TranspositionTable.LOWER) {
+                    alpha = Math.max(alpha, ttScore);
+                } else {
+                    beta = Math.min(beta, ttScore);
                 }
                 if (beta <= alpha) {
-                    break;
+                    return ttScore;
                 }
             }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (int i = 0; i < actualBoard.sizeBoard(); i++) {
-                for (int j = 0; j < actualBoard.sizeBoard(); j++) {
-                    if (actualBoard.isEmpty(i, j)) {
-                        actualBoard.placeStone(i, j, opponent);
-                        int eval = minimax(depth - 1, me, alpha, beta);
-                        actualBoard.placeStone(i, j, null);
-                        minEval = Math.min(minEval, eval);
-                        beta = Math.min(beta, eval);
-                        if (beta <= alpha) {
-                            break;
-                        }
-                    }
+        }
+
+        boolean maximizing = player == me;
+        int bestEval = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestMove = -1;
+        expandedNodes++;
+        int[] moves = orderedMoves(ttMove, player, ply);
+        for (int k = 0; k < moves.length; k++) {
+            int move = moves[k];
+            int i = move / board.size();
+            int j = move % board.size();
+            board.place(i, j, player);
+            int eval = minimax(depth - 1, ply + 1, 1 - player, alpha, beta);
+            board.remove(i, j, player); // Undo the move
+            if (searchAborted) {
+                return 0;
+            }
+            if (maximizing) {
+                if (eval > bestEval) {
+                    bestEval = eval;
+                    bestMove = move;
                 }
-                if (beta <= alpha) {
-                    break;
+                alpha = Math.max(alpha, eval);
+            } else {
+                if (eval < bestEval) {
+                    bestEval = eval;
+                    bestMove = move;
+                }
+                beta = Math.min(beta, eval);
+            }
+            if (beta <= alpha) {
+                cutoffs++;
+                if (k == 0) {
+                    firstMoveCutoffs++;
                 }
+                recordCutoff(move, player, ply, depth);
+                break;
+            }
+        }
+
+        int bound;
+        if (bestEval <= alphaOriginal) {
+            bound = TranspositionTable.UPPER;
+        } else if (bestEval >= betaOriginal) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        transpositionTable.store(key, depth, bound, bestEval, bestMove);
+        return bestEval;
+    }
+
+    /**
+     * Lists the candidate moves of the search board (the empty positions near a stone), encoded
+     * as {@code x * size + y}, in the order they should be searched. The given move, usually the
+     * best move stored in the transposition table, comes first. The others are searched in stages:
+     * moves that win at once, moves that block the opponent's win, moves that make or block an
+     * open three or a four (strongest first by {@code threatPriority}), the killer moves of this
+     * ply, and last the quiet moves, by history score and then by threat priority.
+     *
+     * @param firstMove the encoded move to search first, or -1 if there is none.
+     * @param player    the color of the player to move.
+     * @param ply       the number of moves played since the root.
+     * @return the encoded moves to search.
+     */
+    private int[] orderedMoves(int firstMove, int player, int ply) {
+        int size = board.size();
+        if (firstMove < 0 || firstMove >= size * size || !board.isCandidate(firstMove / size, firstMove % size)) {
+            firstMove = -1;
+        }
+        int[] candidates = new int[board.candidateCount()];
+        int total = board.candidateMoves(candidates);
+        int[] plyKillers = ply < killers.length ? killers[ply] : NO_KILLERS;
+        int[] playerHistory = history[player];
+        // Stage and rank in the high bits and the move in the low bits, so sorting the keys sorts the moves.
+        long[] keys = new long[total];
+        int count = 0;
+        for (int c = 0; c < total; c++) {
+            int move = candidates[c];
+            if (move == firstMove) {
+                continue;
+            }
+            int attack = board.threatScore(move / size, move % size, player);
+            int defense = board.threatScore(move / size, move % size, 1 - player);
+            long stage;
+            long rank;
+            if (attack >= WIN_SCORE) {
+                stage = STAGE_WIN;
+                rank = 0;
+            } else if (defense >= WIN_SCORE) {
+                stage = STAGE_BLOCK;
+                rank = attack;
+            } else if (attack >= THREAT_SCORE || defense >= THREAT_SCORE) {
+                stage = STAGE_THREAT;
+                rank = attack + defense;
+            } else if (move == plyKillers[0] || move == plyKillers[1]) {
+                stage = STAGE_KILLER;
+                rank = move == plyKillers[0] ? 1 : 0;
+            } else {
+                stage = STAGE_QUIET;
+                rank = ((long) playerHistory[move] << PRIORITY_BITS) | (attack + defense);
+            }
+            keys[count++] = (stage << STAGE_SHIFT) | (rank << RANK_SHIFT) | move;
+        }
+        Arrays.sort(keys, 0, count);
+        int next = 0;
+        if (firstMove >= 0) {
+            candidates[next++] = firstMove;
+        }
+        for (int k = count - 1; k >= 0; k--) {
+            candidates[next++] = (int) (keys[k] & ((1 << RANK_SHIFT) - 1));
+        }
+        return candidates;
+    }
+
+    /**
+     * Remembers a move that caused a cutoff, unless it wins, blocks or makes a threat, which
+     * {@code orderedMoves} searches early anyway. The move becomes the first killer move of the
+     * ply, and its history score grows with the square of the remaining depth, so cutoffs near
+     * the root count most.
+     *
+     * @param move   the encoded move that caused the cutoff.
+     * @param player the color that played it.
+     * @param ply    the number of moves played since the root.
+     * @param depth  the remaining depth of the node where it caused the cutoff.
+     */
+    private void recordCutoff(int move, int player, int ply, int depth) {
+        int x = move / board.size();
+        int y = move % board.size();
+        if (board.threatScore(x, y, player) >= THREAT_SCORE || board.threatScore(x, y, 1 - player) >= THREAT_SCORE) {
+            return;
+        }
+        if (ply < killers.length && killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        history[player][move] = Math.min(MAX_HISTORY, history[player][move] + depth * depth);
+    }
+
+    /**
+     * Clears the killer moves and halves the history scores before a search, making new
+     * tables if the board size or the maximum depth changed.
+     *
+     * @param plies the deepest ply the search can reach.
+     */
+    private void resetOrdering(int plies) {
+        if (killers.length != plies + 1) {
+            killers = new int[plies + 1][2];
+        }
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, -1);
+        }
+        int cells = board.size() * board.size();
+        for (int color = 0; color < 2; color++) {
+            if (history[color].length != cells) {
+                history[color] = new int[cells];
+            }
+            for (int move = 0; move < cells; move++) {
+                history[color][move] >>= 1;
             }
-            return minEval;
         }
     }
 
+    /**
+     * Rates an empty position for move ordering with the pattern tables: the threats the player
+     * to move would make there, plus the opponent's threats that a stone there would block.
+     *
+     * @param x      the x-coordinate of the empty position.
+     * @param y      the y-coordinate of the empty position.
+     * @param player the color of the player to move.
+     * @return the ordering priority of the position; higher is searched earlier.
+     */
+    private int threatPriority(int x, int y, int player) {
+        return board.threatScore(x, y, player) + board.threatScore(x, y, 1 - player);
+    }
+
     /**
      * Evaluates the current state of the game board and computes a score representing the
-     * overall position for the AI player. This method iterates through each position on the board.
-     * For empty positions, it calculates a score using the {@code evaluatePosition} method and
-     * aggregates these scores to provide an overall evaluation of the board.
+     * overall position for the AI player. The search board keeps a pattern score for every line
+     * and color, updated only for the lines through each stone placed or removed, so the default
+     * evaluator is just the AI player's total minus the opponent's total.
      *
      * @return an integer score representing the evaluated state of the board. A higher score
      *         indicates a more favorable position for the AI player.
      */
     private int evaluateBoard() {
-        int score = 0;
-        for (int i = 0; i < actualBoard.sizeBoard(); i++) {
-            for (int j = 0; j < actualBoard.sizeBoard(); j++) {
-
-                if (actualBoard.isEmpty(i, j)) {
-                    score += evaluatePosition(i, j);
-                }
-            }
-        }
-        return score;
+        return evaluator.evaluate(board, me);
     }
 
     /**
@@ -269,146 +1029,162 @@ public class ComputerPlayer extends PlayerInterface {
         return lastMove;
     }
 
+    // Returns the number of minimax nodes visited by the last call to bestMove, over all threads.
+    @Override
+    public long getNodesSearched() {
+        long nodes = nodesSearched;
+        for (ComputerPlayer worker : workers) {
+            nodes += worker.nodesSearched;
+        }
+        return nodes;
+    }
+
+    // Returns the number of alpha-beta cutoffs in the last call to bestMove, over all threads.
+    public long getCutoffs() {
+        long total = cutoffs;
+        for (ComputerPlayer worker : workers) {
+            total += worker.cutoffs;
+        }
+        return total;
+    }
+
     /**
-     * Evaluates the score of a specific position on the board based on its potential impact on the game.
-     * The method considers various directions around the position (horizontal, vertical, and two diagonals)
-     * to determine its strategic value. It checks if placing a stone at this position could lead to a
-     * winning opportunity for the opponent, deducting a significant score in such cases. The method also
-     * calculates the number of consecutive stones for both the AI player and the opponent in each direction
-     * and adjusts the score based on these counts using {@code getScoreForConsecutive}.
-     *
-     * @param x  the x-coordinate of the position to evaluate.
-     * @param y  the y-coordinate of the position to evaluate.
-     * @return   an integer score for the position, where a higher score indicates a more favorable position
-     *           for the AI player.
+     * Returns the fraction of the cutoffs in the last call to bestMove that the first move
+     * searched at the node caused, over all threads, or 0 if there were none. The closer to 1,
+     * the better the move ordering.
      */
-    private int evaluatePosition(int x, int y) {
-        int score = 0;
+    public double getFirstMoveCutoffRate() {
+        long total = firstMoveCutoffs;
+        for (ComputerPlayer worker : workers) {
+            total += worker.firstMoveCutoffs;
+        }
+        long all = getCutoffs();
+        return all == 0 ? 0.0 : (double) total / all;
+    }
 
-        for (int[] direction : new int[][]{{1, 0}, {0, 1}, {1, 1}, {-1, 1}}) {
-            if (createsWinningOpportunity(x, y, direction[0], direction[1], opponent)) {
-                score -= 100000;
-            }
+    // Returns the number of nodes whose moves were searched in the last call to bestMove.
+    public long getExpandedNodes() {
+        long total = expandedNodes;
+        for (ComputerPlayer worker : workers) {
+            total += worker.expandedNodes;
         }
+        return total;
+    }
 
-        for (int[] direction : new int[][]{{1, 0}, {0, 1}, {1, 1}, {-1, 1}}) {
-            int consecutive = countConsecutiveStones(x, y, direction[0], direction[1], me);
-            int blocks = countConsecutiveStones(x, y, direction[0], direction[1], opponent);
+    /**
+     * Returns the average number of moves searched per expanded node in the last call to
+     * bestMove, or 0 if no node was expanded.
+     */
+    public double getBranchingFactor() {
+        long expanded = getExpandedNodes();
+        return expanded == 0 ? 0.0 : (double) getNodesSearched() / expanded;
+    }
 
-            score += getScoreForConsecutive(consecutive);
-            score -= getScoreForConsecutive(blocks);
-        }
+    /**
+     * Sets how many threads {@code bestMove} splits the root moves across. One thread searches
+     * sequentially on the calling thread.
+     *
+     * @param threads the number of search threads, at least 1.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
 
-        return score;
+    // Returns the depth, in plies, of the last iteration that bestMove finished.
+    public int getDepthReached() {
+        return depthReached;
     }
 
     /**
-     * Determines whether placing a stone by a specific player at the given coordinates
-     * creates a winning opportunity in a particular direction. This method temporarily places
-     * a stone at the specified position for the given player, checks if this creates a win
-     * in the specified direction using {@code checkDirection}, and then undoes the move.
+     * Sets the wall-clock time one call to {@code bestMove} may spend searching.
      *
-     * @param x      the x-coordinate where the stone is to be placed.
-     * @param y      the y-coordinate where the stone is to be placed.
-     * @param dx     the x-direction component for checking the line (e.g., 1 for right, -1 for a left).
-     * @param dy     the y-direction component for checking the line (e.g., 1 for down, -1 for up).
-     * @param player the player for whom the move is being checked.
-     * @return       true if placing a stone at (x, y) for the specified player in the given direction
-     *               results in a winning opportunity; false otherwise.
+     * @param millis the time budget in milliseconds, or {@code Long.MAX_VALUE} for no limit.
      */
-    private boolean createsWinningOpportunity(int x, int y, int dx, int dy, PlayerInterface player) {
-        actualBoard.placeStone(x, y, player);
-        boolean wins = checkDirection(x, y, player, dx, dy);
-        actualBoard.placeStone(x, y, null);
-        return wins;
+    public void setTimeBudget(long millis) {
+        this.timeBudgetMillis = millis;
     }
 
     /**
-     * Counts the number of consecutive stones placed by a specific player in a given direction
-     * from the specified starting position. The method checks a line segment of up to five positions
-     * (including the starting position) along the specified direction. The count resets if a stone
-     * belonging to the other player is encountered, except for the immediate predecessor of the starting position.
+     * Sets the number of nodes one call to {@code bestMove} may search.
      *
-     * @param x      the x-coordinate of the starting position.
-     * @param y      the y-coordinate of the starting position.
-     * @param dx     the x-direction component for checking the line (e.g., 1 for right, -1 for a left).
-     * @param dy     the y-direction component for checking the line (e.g., 1 for down, -1 for up).
-     * @param player the player whose stones are being counted.
-     * @return       the number of consecutive stones belonging to the specified player
-     *               along the given direction from the starting position.
+     * @param nodes the node budget, or {@code Long.MAX_VALUE} for no limit.
      */
-    private int countConsecutiveStones(int x, int y, int dx, int dy, PlayerInterface player) {
-        int count = 0;
-        for (int i = -1; i <= 4; i++) {
-            int newX = x + dx * i;
-            int newY = y + dy * i;
-            if (newX < 0 || newY < 0 || newX >= actualBoard.sizeBoard() || newY >= actualBoard.sizeBoard()) {
-                continue;
-            }
-            if (actualBoard.playerAt(newX, newY) == player) {
-                count++;
-            } else if (i != -1) {
-                count = 0;
-            }
-        }
-        return count;
+    public void setNodeBudget(long nodes) {
+        this.nodeBudget = nodes;
+    }
+
+    /**
+     * Sets the deepest iteration, in plies, that {@code bestMove} will search.
+     *
+     * @param maxDepth the maximum depth, at least 1.
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(1, maxDepth);
+    }
+
+    /**
+     * Sets the number of nodes the threat-space search may use before the main search, in
+     * every call to {@code bestMove}.
+     *
+     * @param nodes the node budget of the threat-space search; 0 skips it.
+     */
+    public void setThreatNodeBudget(long nodes) {
+        this.threatNodeBudget = nodes;
+        threatSearch.setNodeBudget(nodes);
+    }
+
+    /**
+     * Sets the opening book probed before every search. New players use
+     * {@code OpeningBook.getDefault()}.
+     *
+     * @param openingBook the book, or null to always search.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public ThreatSearch getThreatSearch() {
+        return threatSearch;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
     }
 
     /**
-     * Assigns a score based on the number of consecutive stones a player has on the board.
-     * This method uses a switch statement to return different scores for different counts of
-     * consecutive stones. Higher counts of consecutive stones receive exponentially higher scores,
-     * reflecting their increased strategic value in the game.
+     * Determines whether placing a stone by a specific player at the given coordinates
+     * creates a winning opportunity in a particular direction. The check is done by
+     * {@code checkDirection} on the line bitboard with the stone added, so the board is
+     * not modified.
      *
-     * @param consecutive the number of consecutive stones for a player in any direction.
-     * @return an integer score corresponding to the strategic value of the consecutive stones.
-     *         Returns 10,000 for 5 stones, 1,000 for 4 stones, 100 for 3 stones, 10 for 2 stones,
-     *         and 0 for any other count.
+     * @param x      the x-coordinate where the stone is to be placed.
+     * @param y      the y-coordinate where the stone is to be placed.
+     * @param dx     the x-direction component for checking the line (e.g., 1 for right, -1 for a left).
+     * @param dy     the y-direction component for checking the line (e.g., 1 for down, -1 for up).
+     * @param player the color of the player for whom the move is being checked.
+     * @return       true if placing a stone at (x, y) for the specified player in the given direction
+     *               results in a winning opportunity; false otherwise.
      */
-    private int getScoreForConsecutive(int consecutive) {
-        return switch (consecutive) {
-            case 5 -> 10000;
-            case 4 -> 1000;
-            case 3 -> 100;
-            case 2 -> 10;
-            default -> 0;
-        };
+    private boolean createsWinningOpportunity(int x, int y, int dx, int dy, int player) {
+        return checkDirection(x, y, player, dx, dy);
     }
 
     /**
-     * Checks if there are five consecutive stones of a given player in a specified direction
-     * starting from the specified coordinates. This method iterates through positions in a
-     * line segment centered at (x, y) and extending four positions in both directions along the
-     * given dx and dy components. It counts consecutive stones of the specified player and
-     * resets the count if a stone of a different player or an empty space is encountered.
+     * Checks if a stone of the given player at the specified coordinates makes five consecutive
+     * stones in a specified direction. Rather than walking the cells of the line, this takes the
+     * player's bitboard for the line through (x, y), sets the bit for (x, y) and tests it with
+     * shift-and-AND.
      *
      * @param x      the x-coordinate of the center position from where to start checking.
      * @param y      the y-coordinate of the center position from where to start checking.
-     * @param player the player whose consecutive stones are being checked.
+     * @param player the color of the player whose consecutive stones are being checked.
      * @param dx     the x-direction component for checking the line (e.g., 1 for right, -1 for a left).
      * @param dy     the y-direction component for checking the line (e.g., 1 for down, -1 for up).
      * @return       true if there are five consecutive stones of the specified player in the
      *               given direction; false otherwise.
      */
-    private boolean checkDirection(int x, int y, PlayerInterface player, int dx, int dy) {
-        int count = 0;
-        for (int i = -4; i <= 4; i++) {
-            int newX = x + dx * i;
-            int newY = y + dy * i;
-
-            if (newX >= 0 && newX < actualBoard.sizeBoard() && newY >= 0 && newY < actualBoard.sizeBoard()) {
-                PlayerInterface current = actualBoard.getGrid()[newX][newY];
-                if (current != null && current.equals(player)) {
-                    count++;
-                    if (count == 5) {
-                        return true;
-                    }
-                } else {
-                    count = 0;
-                }
-            }
-        }
-        return false;
+    private boolean checkDirection(int x, int y, int player, int dx, int dy) {
+        return board.wouldMakeFive(x, y, dx, dy, player);
     }
 
     /**
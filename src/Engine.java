@@ -0,0 +1,56 @@
+/**
+ * A player that chooses its own moves by searching the position: {@code ComputerPlayer}, which
+ * uses minimax, or {@code MctsPlayer}, which uses Monte Carlo tree search. The game hands it a
+ * snapshot of the board, so the search can run on another thread while the game board stays
+ * with the user interface.
+ */
+public interface Engine {
+    /**
+     * Determines the best move for the engine's color in a position. The search can be stopped
+     * early with {@code cancel}.
+     *
+     * @param position the position to search; it is searched in place and restored afterwards.
+     * @return the coordinates [x, y] of the best move, or null if the search was cancelled.
+     */
+    int[] bestMove(SearchBoard position);
+
+    /**
+     * Announces a search on the game's thread before it is handed to the search thread, so that
+     * a cancel made before it starts can stop it too. Engines that need no announcement return 0.
+     *
+     * @return the number of the search, to pass to {@code bestMove(SearchBoard, long)}.
+     */
+    default long beginSearch() {
+        return 0;
+    }
+
+    /**
+     * Determines the best move for a search announced with {@code beginSearch}.
+     *
+     * @param position the position to search; it is searched in place and restored afterwards.
+     * @param search   the number beginSearch returned.
+     * @return the coordinates [x, y] of the best move, or null if the search was cancelled.
+     */
+    default int[] bestMove(SearchBoard position, long search) {
+        return bestMove(position);
+    }
+
+    /**
+     * Stops a search that is running on another thread. {@code bestMove} then returns null as
+     * soon as the search notices.
+     */
+    void cancel();
+
+    void setProgressListener(ProgressListener progressListener);
+
+    // Returns the amount of work the last call to bestMove did: minimax nodes or playouts.
+    long getNodesSearched();
+
+    /**
+     * Receives progress reports from a running search, on the searching thread: after every
+     * completed iteration for minimax, and every few thousand playouts for tree search.
+     */
+    interface ProgressListener {
+        void searchProgress(int depth, long nodes);
+    }
+}
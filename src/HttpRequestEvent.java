@@ -0,0 +1,28 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recorded for every request {@code JavaClient} sends. Its duration is the round trip,
+ * from sending the request to having the whole response body.
+ */
+@Name("omok.HttpRequest")
+@Label("HTTP Request")
+@Category({"Omok", "Network"})
+@Description("One round trip to the game server")
+public class HttpRequestEvent extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Status")
+    @Description("HTTP status code, or 0 if no response arrived")
+    int status;
+
+    @Label("Response Length")
+    int responseLength;
+
+    @Label("Error")
+    String error;
+}
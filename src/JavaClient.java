@@ -1,52 +1,132 @@
-import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class JavaClient {
+    // Scheme and Authority of the default game server; -Domok.server=<url> points it elsewhere,
+    // for example at a local OmokServer.
+    public static final String DEFAULT_BASE_URL =
+            System.getProperty("omok.server", "https://www.cs.utep.edu/cheon/cs3360/project/omok/");
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(10);
 
-    static {
-        trustAllCertificates();
+    private final String baseUrl;
+    private final Duration readTimeout;
+    // One client per JavaClient; it keeps connections alive and reuses them for every request.
+    // Over https it uses HTTP/2 when the server offers it. Over plain http it sticks to HTTP/1.1,
+    // since asking for HTTP/2 there means an upgrade attempt on every request the server refuses.
+    private final HttpClient httpClient;
+
+    public JavaClient() {
+        this(DEFAULT_BASE_URL, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
     }
 
-    private static void trustAllCertificates() {
+    /**
+     * Creates a client for the game server at the given base URL.
+     *
+     * @param baseUrl        the scheme, authority and path that request paths are appended to.
+     * @param connectTimeout how long to wait for a connection to the server.
+     * @param readTimeout    how long to wait for the response to a request.
+     */
+    public JavaClient(String baseUrl, Duration connectTimeout, Duration readTimeout) {
+        this.baseUrl = baseUrl;
+        this.readTimeout = readTimeout;
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(baseUrl.startsWith("https:") ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout);
+        SSLContext sslContext = trustAllCertificates();
+        if (sslContext != null) {
+            builder.sslContext(sslContext);
+        }
+        this.httpClient = builder.build();
+    }
+
+    // Returns an SSL context that accepts every server certificate, or null if one cannot be made.
+    private static SSLContext trustAllCertificates() {
         try {
-            SSLContext sc = SSLContext.getInstance("SSL");
+            SSLContext sc = SSLContext.getInstance("TLS");
             sc.init(null, new TrustManager[]{new NaiveTrustManager()}, new java.security.SecureRandom());
-            HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
+            return sc;
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
     }
 
+    /**
+     * Sends a GET request for the document at the specified path without blocking.
+     * The returned future completes with the response body, or exceptionally if the
+     * request/connection fails or the server answers with an error status.
+     */
+    public CompletableFuture<String> sendGetAsync(String path) {
+        HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        return httpClient.sendAsync(newGet(path), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> commit(event, path, response, error))
+                .thenApply(response -> {
+                    try {
+                        return bodyOf(response, path);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
     /**
      * Retrieve the document at the specified URL by sending a GET request;
      * return null if the request/connection fails.
      */
     public String sendGet(String path) {
-        String schemeAndAuthority = "https://www.cs.utep.edu/cheon/cs3360/project/omok/"; // Scheme and Authority
-        HttpURLConnection con = null;
+        HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        HttpResponse<String> response = null;
+        Throwable error = null;
         try {
-            URL url = new URL(schemeAndAuthority + path);
-            con = (HttpURLConnection) url.openConnection();
-            BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = in.readLine()) != null) {
-                response.append(line);
-            }
-            return response.toString();
+            response = httpClient.send(newGet(path), HttpResponse.BodyHandlers.ofString());
+            return bodyOf(response, path);
         } catch (IOException e) {
+            error = e;
             e.printStackTrace();
+        } catch (InterruptedException e) {
+            error = e;
+            Thread.currentThread().interrupt();
         } finally {
-            if (con != null) {
-                con.disconnect();
-            }
+            commit(event, path, response, error);
         }
         return null;
     }
+
+    // Records the round trip as a JFR event, if the event is enabled.
+    private static void commit(HttpRequestEvent event, String path, HttpResponse<String> response, Throwable error) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.status = response == null ? 0 : response.statusCode();
+            event.responseLength = response == null ? 0 : response.body().length();
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            event.error = cause == null ? null : cause.toString();
+            event.commit();
+        }
+    }
+
+    private HttpRequest newGet(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(readTimeout)
+                .GET()
+                .build();
+    }
+
+    private static String bodyOf(HttpResponse<String> response, String path) throws IOException {
+        if (response.statusCode() >= 400) {
+            throw new IOException("Server returned HTTP " + response.statusCode() + " for " + path);
+        }
+        return response.body();
+    }
 }
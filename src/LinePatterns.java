@@ -0,0 +1,180 @@
+import java.util.Arrays;
+
+/**
+ * Classifies and scores the stones of one color along a single line of the board (a row, column
+ * or diagonal) with a lookup table. Lines are given as packed bitboards, bit i being cell i of the
+ * line. For any cell, the nine cells centered on it (four on each side) are packed into a base-3
+ * index (empty, ours, blocked) and looked up in a table, built once when the class is loaded, that
+ * gives the threat class of the shape through that cell: five, open four, four, open three, three,
+ * open two, two or none.
+ */
+public class LinePatterns {
+    // Threat classes, weakest first.
+    public static final int NONE = 0;
+    public static final int TWO = 1;
+    public static final int OPEN_TWO = 2;
+    public static final int THREE = 3;
+    public static final int OPEN_THREE = 4;
+    public static final int FOUR = 5;
+    public static final int OPEN_FOUR = 6;
+    public static final int FIVE = 7;
+
+    // Score of each threat class. A five outweighs any number of other shapes on the board.
+    private static final int[] CLASS_SCORES = {1, 10, 20, 100, 500, 1_000, 50_000, 10_000_000};
+    // Number of our stones a shape of each class usually has. Every stone of a shape finds the
+    // same class, so each one is given this share of the class score.
+    private static final int[] CLASS_STONES = {1, 2, 2, 3, 3, 4, 4, 5};
+    private static final int[] STONE_SCORES = new int[CLASS_SCORES.length];
+
+    // The window is nine cells wide with the classified cell in the middle. Every five-cell run
+    // inside such a window includes the middle cell.
+    private static final int WINDOW = 9;
+    private static final int CENTER = 4;
+    private static final int WINDOW_MASK = (1 << WINDOW) - 1;
+    // TERNARY[bits] is the base-3 number with digit 1 wherever bits has a 1.
+    private static final int[] TERNARY = new int[1 << WINDOW];
+    // Threat class per window index TERNARY[ours] + 2 * TERNARY[blocked]; -1 until computed.
+    private static final byte[] CLASSES = new byte[19683];
+
+    static {
+        for (int bits = 0; bits < TERNARY.length; bits++) {
+            int value = 0;
+            for (int cell = WINDOW - 1; cell >= 0; cell--) {
+                value = value * 3 + ((bits >> cell) & 1);
+            }
+            TERNARY[bits] = value;
+        }
+        Arrays.fill(CLASSES, (byte) -1);
+        for (int mine = 0; mine <= WINDOW_MASK; mine++) {
+            if ((mine & (1 << CENTER)) == 0) {
+                continue;
+            }
+            for (int blocked = 0; blocked <= WINDOW_MASK; blocked++) {
+                if ((mine & blocked) == 0) {
+                    classify(mine, blocked);
+                }
+            }
+        }
+        for (int threat = NONE; threat <= FIVE; threat++) {
+            STONE_SCORES[threat] = CLASS_SCORES[threat] / CLASS_STONES[threat];
+        }
+    }
+
+    private LinePatterns() {
+    }
+
+    /**
+     * Works out the threat class of the shape through the middle cell of a window, which must
+     * hold one of our stones. A five is a five; a shape that one more stone turns into a five in
+     * two or more ways is an open four, and in exactly one way a four. Otherwise the shape is
+     * classed by the best shape one more stone can make: an open three can become an open four,
+     * a three a four, an open two an open three and a two a three.
+     *
+     * @param mine    the window cells holding our stones.
+     * @param blocked the window cells we cannot use.
+     * @return the threat class of the shape.
+     */
+    private static int classify(int mine, int blocked) {
+        int index = TERNARY[mine] + 2 * TERNARY[blocked];
+        if (CLASSES[index] >= 0) {
+            return CLASSES[index];
+        }
+        int threat;
+        if (hasFive(mine)) {
+            threat = FIVE;
+        } else {
+            int fives = 0;
+            int best = NONE;
+            for (int cell = 0; cell < WINDOW; cell++) {
+                if (((mine | blocked) & (1 << cell)) != 0) {
+                    continue;
+                }
+                int extended = mine | (1 << cell);
+                if (hasFive(extended)) {
+                    fives++;
+                } else {
+                    best = Math.max(best, classify(extended, blocked));
+                }
+            }
+            if (fives >= 2) {
+                threat = OPEN_FOUR;
+            } else if (fives == 1) {
+                threat = FOUR;
+            } else {
+                threat = switch (best) {
+                    case OPEN_FOUR -> OPEN_THREE;
+                    case FOUR -> THREE;
+                    case OPEN_THREE -> OPEN_TWO;
+                    case THREE -> TWO;
+                    default -> NONE;
+                };
+            }
+        }
+        CLASSES[index] = (byte) threat;
+        return threat;
+    }
+
+    private static boolean hasFive(long line) {
+        return (line & (line >>> 1) & (line >>> 2) & (line >>> 3) & (line >>> 4)) != 0;
+    }
+
+    /**
+     * Returns the threat class of the shape through a cell of a line that holds one of our stones.
+     *
+     * @param mine    the bitboard of our stones on the line.
+     * @param blocked the bitboard of cells we cannot use: the opponent's stones and every cell
+     *                that lies off the board.
+     * @param cell    the bit of the cell, which must be set in {@code mine}.
+     * @return the threat class, {@code NONE} to {@code FIVE}.
+     */
+    public static int classAt(long mine, long blocked, int cell) {
+        int shift = cell - CENTER;
+        long ours;
+        long theirs;
+        if (shift >= 0) {
+            ours = mine >>> shift;
+            theirs = blocked >>> shift;
+            if (shift > 64 - WINDOW) {
+                // Cells past bit 63 are off the board.
+                theirs |= -1L << (64 - shift);
+            }
+        } else {
+            ours = mine << -shift;
+            theirs = (blocked << -shift) | ((1L << -shift) - 1);
+        }
+        return CLASSES[TERNARY[(int) ours & WINDOW_MASK] + 2 * TERNARY[(int) theirs & WINDOW_MASK]];
+    }
+
+    /**
+     * Returns the threat class our stone would make on an empty cell of a line.
+     *
+     * @param mine    the bitboard of our stones on the line.
+     * @param blocked the bitboard of cells we cannot use.
+     * @param cell    the bit of the empty cell.
+     * @return the threat class the stone would make, {@code NONE} to {@code FIVE}.
+     */
+    public static int threatAt(long mine, long blocked, int cell) {
+        return classAt(mine | (1L << cell), blocked, cell);
+    }
+
+    public static int scoreOf(int threat) {
+        return CLASS_SCORES[threat];
+    }
+
+    /**
+     * Scores one line for one color: every stone of ours adds its share of the score of the
+     * threat class of the shape it belongs to, found with one table lookup per stone.
+     *
+     * @param mine    the bitboard of our stones on the line.
+     * @param blocked the bitboard of cells we cannot use: the opponent's stones and every cell
+     *                that lies off the board.
+     * @return the score of the line for our color, or 0 if we have no stones on it.
+     */
+    public static int score(long mine, long blocked) {
+        int score = 0;
+        for (long stones = mine; stones != 0; stones &= stones - 1) {
+            score += STONE_SCORES[classAt(mine, blocked, Long.numberOfTrailingZeros(stones))];
+        }
+        return score;
+    }
+}
@@ -11,9 +11,13 @@ public class MainMenuSelect extends JPanel {
 
     private JRadioButton humanButton;
     private JRadioButton computerButton;
+    private JRadioButton mctsButton;
     private JRadioButton javaCbutton;
     private JTextField playerNameField;
     private JTextField opponentNameField;
+    // Board sizes offered, in rows and columns; games against the Java client use the server's size.
+    private static final int[] BOARD_SIZES = {ActualBoard.BOARD_SIZE, 19, 100};
+    private JComboBox<String> boardSizeBox;
     private final BufferedImage backgroundImage;
     private final BufferedImage icon;
 
@@ -73,7 +77,7 @@ public class MainMenuSelect extends JPanel {
         // Define a custom font
         Font customFont = new Font("DialogInput", Font.ROMAN_BASELINE, 14);
 
-        this.setPreferredSize(new Dimension(450, 450));
+        this.setPreferredSize(new Dimension(520, 520));
         this.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         this.setLayout(new GridBagLayout());
 
@@ -99,6 +103,14 @@ public class MainMenuSelect extends JPanel {
         addFocusListenerToTextField(opponentNameField, "Computer");
         opponentNameField.setEnabled(false);
 
+        JLabel boardSizeLabel = new JLabel("Board Size:");
+        boardSizeLabel.setFont(customFont);
+        boardSizeBox = new JComboBox<>();
+        boardSizeBox.setFont(customFont);
+        for (int size : BOARD_SIZES) {
+            boardSizeBox.addItem(size + " x " + size);
+        }
+
         JLabel label = new JLabel("Select opponent:");
         label.setFont(customFont);
         this.add(label, gbc);
@@ -107,20 +119,25 @@ public class MainMenuSelect extends JPanel {
         humanButton.setFont(customFont);
         computerButton = new JRadioButton("Computer");
         computerButton.setFont(customFont);
+        mctsButton = new JRadioButton("Computer (MCTS)");
+        mctsButton.setFont(customFont);
         javaCbutton = new JRadioButton("Java Client");
         javaCbutton.setFont(customFont);
 
         humanButton.addActionListener(e -> opponentNameField.setEnabled(true));
         computerButton.addActionListener(e -> opponentNameField.setEnabled(false));
+        mctsButton.addActionListener(e -> opponentNameField.setEnabled(false));
         javaCbutton.addActionListener(e -> opponentNameField.setEnabled(false));
 
         ButtonGroup group = new ButtonGroup();
         group.add(humanButton);
         group.add(computerButton);
+        group.add(mctsButton);
         group.add(javaCbutton);
 
         JPanel radioPanel = new JPanel(new FlowLayout());
         radioPanel.add(computerButton);
+        radioPanel.add(mctsButton);
         radioPanel.add(humanButton);
         radioPanel.add(javaCbutton);
 
@@ -128,6 +145,8 @@ public class MainMenuSelect extends JPanel {
         this.add(playerNameField, gbc);
         this.add(opponentNameLabel, gbc);
         this.add(opponentNameField, gbc);
+        this.add(boardSizeLabel, gbc);
+        this.add(boardSizeBox, gbc);
         this.add(radioPanel, gbc);
 
         JButton playButton = new JButton("Play");
@@ -145,7 +164,7 @@ public class MainMenuSelect extends JPanel {
     private void playButtonActionPerformed(ActionEvent e) {
         String playerName = playerNameField.getText().trim();
         String opponentName = opponentNameField.getText().trim();
-        boolean isAI = computerButton.isSelected();
+        boolean isAI = computerButton.isSelected() || mctsButton.isSelected();
 
         if (playerName.isEmpty()) {
             playerName = "Player 1";
@@ -154,10 +173,12 @@ public class MainMenuSelect extends JPanel {
             opponentName = isAI ? "Computer" : "Player 2";
         }
 
-        if (humanButton.isSelected() || computerButton.isSelected()) {
+        if (humanButton.isSelected() || isAI) {
             PlayerInterface player1 = new HumanPlayer(Stone.BLACK, playerName);
-            PlayerInterface player2 = new HumanPlayer(Stone.WHITE, opponentName);
-            startGame(player1, player2, isAI);
+            // The game makes the minimax player itself; the tree search player is made here.
+            PlayerInterface player2 = mctsButton.isSelected() ? new MctsPlayer(Stone.WHITE)
+                    : new HumanPlayer(Stone.WHITE, opponentName);
+            startGame(player1, player2, isAI, BOARD_SIZES[boardSizeBox.getSelectedIndex()]);
             Window topFrame = SwingUtilities.getWindowAncestor(this);
             if (topFrame != null) {
                 topFrame.dispose();
@@ -168,7 +189,7 @@ public class MainMenuSelect extends JPanel {
             if (strategy != null) {
                 PlayerInterface player1 = new HumanPlayer(Stone.BLACK, playerName);
                 JavaClientPlayer javaClientPlayer = new JavaClientPlayer(Stone.WHITE, strategy); // Assuming this class exists
-                startGame(player1, javaClientPlayer, false);
+                startGame(player1, javaClientPlayer, false, ActualBoard.BOARD_SIZE);
             }
         } else {
             JOptionPane.showMessageDialog(this, "Select an option!");
@@ -186,11 +207,11 @@ public class MainMenuSelect extends JPanel {
     /**
     * Starts a new game with the provided player interfaces and configuration.
     */
-    private void startGame(PlayerInterface player1, PlayerInterface player2, boolean isAI) {
+    private void startGame(PlayerInterface player1, PlayerInterface player2, boolean isAI, int boardSize) {
         JFrame gameFrame = new JFrame("Omok Game");
         SwingUtilities.invokeLater(() -> {
             try {
-                BoardFrame board = new BoardFrame(player1, player2, isAI);
+                BoardFrame board = new BoardFrame(player1, player2, isAI, boardSize);
                 ImageIcon icon = new ImageIcon("images/MainMenuPic.png");
                 gameFrame.setIconImage(icon.getImage());
                 gameFrame.setIconImage(icon.getImage());
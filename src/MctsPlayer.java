@@ -0,0 +1,725 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A computer player that chooses its moves by Monte Carlo tree search rather than minimax. Each
+ * playout walks down the tree by UCT, expands the leaf it reaches, plays the game out with quick
+ * pattern-guided moves and adds the result to every node on its way. The move played is the
+ * root move that was visited most.
+ * <p>
+ * Playouts run on several threads at once over the same tree. A thread adds its visit to every
+ * node as it walks down but its result only on the way back, so until then the node looks like
+ * a loss to the other threads, which then tend to explore other lines (a virtual loss).
+ * <p>
+ * The tree is kept between moves: when the position to search follows from the last one by the
+ * move played and the opponent's reply, the subtree of that reply becomes the new root, with
+ * all its playouts. Nodes live in two preallocated pools; the kept subtree is copied into the
+ * spare pool and the pools swap, so the tree never needs the garbage collector. Playouts
+ * allocate nothing either: each thread works on its own board and buffers.
+ */
+public class MctsPlayer extends PlayerInterface implements Engine {
+    // Search limits used unless they are changed with the setters.
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+    // Nodes each of the two pools holds; a full pool stops the tree from growing, not the search.
+    public static final int DEFAULT_NODE_CAPACITY = 1 << 19;
+    // Exploration constant of UCT, for values from 0 (every playout lost) to 1 (every one won).
+    private static final double EXPLORATION = 0.4;
+    // A leaf is expanded on its second visit, so the many nodes visited only once stay leaves.
+    private static final int EXPANSION_VISITS = 2;
+    // Children of a node: its strongest candidate moves by threat priority, strongest first.
+    private static final int MAX_CHILDREN = 24;
+    // A playout still undecided after this many moves past the tree counts as a draw.
+    private static final int MAX_PLAYOUT_MOVES = 60;
+    // Random candidate moves a playout compares by threat priority to choose each move.
+    private static final int PLAYOUT_SAMPLES = 3;
+    // Playouts between two looks at the clock, and between two progress reports.
+    private static final int CHECK_INTERVAL = 32;
+    private static final int REPORT_INTERVAL = 4096;
+    private static final int WIN_SCORE = LinePatterns.scoreOf(LinePatterns.FIVE);
+    // Directions of the four lines through a position, as SearchBoard.wouldMakeFive takes them.
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    // Expansion states of a node.
+    private static final int LEAF = 0;
+    private static final int EXPANDING = 1;
+    private static final int EXPANDED = 2;
+
+    private final int me;
+    private final int opponentColor;
+    // The pool holding the tree and the one the kept subtree is copied into between moves, and
+    // the queues of the copy.
+    private NodePool tree;
+    private NodePool spare;
+    private final int[] copyFrom;
+    private final int[] copyTo;
+    private int root;
+    // The position at the root, and the move chosen there, for finding it again next move.
+    private SearchBoard rootBoard;
+    private int rootMove = -1;
+    // Limits for one call to bestMove. The search stops at whichever is reached first.
+    private long timeBudgetMillis = DEFAULT_TIME_BUDGET_MILLIS;
+    private long playoutBudget = Long.MAX_VALUE;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Playouts[] workers = new Playouts[0];
+    private ForkJoinPool pool;
+    // State shared with the playout threads during a search.
+    private volatile boolean stop;
+    private long deadline;
+    private final AtomicLong playouts = new AtomicLong();
+    private final AtomicInteger deepest = new AtomicInteger();
+    private long reusedPlayouts;
+    // Set from another thread to stop the current search; see cancel().
+    private volatile boolean cancelled;
+    // Searches announced on the game's thread by beginSearch are numbered in order. A cancel
+    // reaches every search announced so far, even one that has not started, and the search
+    // about to run gives its number, or 0 if it was not announced. Guarded by cancelLock.
+    private final Object cancelLock = new Object();
+    private long announcedSearches = 0;
+    private long lastCancelledSearch = 0;
+    private long requestedSearch = 0;
+    private ProgressListener progressListener;
+
+    /**
+     * Nodes of the tree, in parallel arrays indexed by node. The children of a node are stored
+     * next to each other, strongest first. Visits and values change with every playout, from
+     * any thread; the rest of a node is written once, by the thread that expands its parent,
+     * before that thread marks the parent expanded.
+     */
+    private static final class NodePool {
+        final int capacity;
+        // The move leading to the node, encoded as x * size + y; -1 for the root.
+        final int[] move;
+        final int[] firstChild;
+        final int[] childCount;
+        // LEAF, EXPANDING or EXPANDED.
+        final AtomicIntegerArray expansion;
+        final AtomicIntegerArray visits;
+        // 2 per win and 1 per draw of the player who made the node's move.
+        final AtomicLongArray value;
+        final AtomicInteger used = new AtomicInteger();
+
+        NodePool(int capacity) {
+            this.capacity = capacity;
+            move = new int[capacity];
+            firstChild = new int[capacity];
+            childCount = new int[capacity];
+            expansion = new AtomicIntegerArray(capacity);
+            visits = new AtomicIntegerArray(capacity);
+            value = new AtomicLongArray(capacity);
+        }
+
+        // Takes count consecutive fresh nodes and returns the first, or -1 if the pool is full.
+        int allocate(int count) {
+            if (used.get() + count > capacity) {
+                return -1;
+            }
+            int first = used.getAndAdd(count);
+            if (first + count > capacity) {
+                return -1;
+            }
+            for (int node = first; node < first + count; node++) {
+                childCount[node] = 0;
+                expansion.set(node, LEAF);
+                visits.set(node, 0);
+                value.set(node, 0);
+            }
+            return first;
+        }
+    }
+
+    public MctsPlayer(Stone stoneType) {
+        this(stoneType, DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * Constructs a tree search player whose tree holds at most the given number of nodes. Twice
+     * that many are allocated, for the copy of the tree kept between moves.
+     *
+     * @param stoneType    the type of stone that the player will use in the game.
+     * @param nodeCapacity the most nodes the tree may hold.
+     */
+    public MctsPlayer(Stone stoneType, int nodeCapacity) {
+        super("Computer", stoneType);
+        this.me = SearchBoard.colorOf(stoneType);
+        this.opponentColor = 1 - me;
+        this.tree = new NodePool(nodeCapacity);
+        this.spare = new NodePool(nodeCapacity);
+        this.copyFrom = new int[nodeCapacity];
+        this.copyTo = new int[nodeCapacity];
+    }
+
+    /**
+     * Determines the best move for a snapshot of the game board. A move that makes five, or
+     * else one that stops the opponent's five, is played without a search. Otherwise playouts
+     * run until the time or playout budget is spent or the search is cancelled.
+     *
+     * @param position the position to search; it is searched in place and restored afterwards.
+     * @return the coordinates [x, y] of the best move, or null if the search was cancelled.
+     */
+    @Override
+    public int[] bestMove(SearchBoard position) {
+        synchronized (cancelLock) {
+            // A search cancelled before it started does not start.
+            cancelled = requestedSearch != 0 && requestedSearch <= lastCancelledSearch;
+            stop = cancelled;
+            requestedSearch = 0;
+        }
+        if (cancelled) {
+            return null;
+        }
+        playouts.set(0);
+        deepest.set(0);
+        reusedPlayouts = 0;
+        deadline = System.nanoTime() + timeBudgetMillis * 1_000_000;
+        int size = position.size();
+
+        int move = immediateMove(position);
+        if (move >= 0) {
+            newTree();
+        } else {
+            prepareWorkers(position);
+            findRoot(position);
+        }
+        rootBoard = new SearchBoard(position);
+        rootMove = -1;
+        if (move < 0) {
+            if (!workers[0].expand(root, me)) {
+                // Only a full pool keeps the root from being expanded; start over with an empty one.
+                newTree();
+                workers[0].expand(root, me);
+            }
+            if (tree.childCount[root] == 1) {
+                move = tree.move[tree.firstChild[root]];
+            } else {
+                runPlayouts();
+                if (cancelled) {
+                    return null;
+                }
+                move = mostVisitedChild(root);
+            }
+        }
+        rootMove = move;
+        lastMove = new int[]{move / size, move % size};
+        return lastMove;
+    }
+
+    // Returns a move that makes five for the player, or else one that stops the opponent's, or -1.
+    private int immediateMove(SearchBoard position) {
+        int size = position.size();
+        if (position.stoneCount() == 0) {
+            return -1;
+        }
+        int[] candidates = new int[position.candidateCount()];
+        int count = position.candidateMoves(candidates);
+        int block = -1;
+        for (int c = 0; c < count; c++) {
+            int x = candidates[c] / size;
+            int y = candidates[c] % size;
+            if (position.threatScore(x, y, me) >= WIN_SCORE) {
+                return candidates[c];
+            }
+            if (block < 0 && position.threatScore(x, y, opponentColor) >= WIN_SCORE) {
+                block = candidates[c];
+            }
+        }
+        return block;
+    }
+
+    // Gives every playout thread its own copy of the position and buffers for its board size.
+    private void prepareWorkers(SearchBoard position) {
+        int size = position.size();
+        if (workers.length != threads || workers[0].candidates.length != size * size) {
+            workers = new Playouts[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = new Playouts(size, t == 0);
+            }
+        }
+        for (Playouts worker : workers) {
+            worker.board = new SearchBoard(position);
+        }
+        if (threads > 1 && (pool == null || pool.getParallelism() != threads)) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            pool = new ForkJoinPool(threads);
+        }
+    }
+
+    /**
+     * Finds the node of the tree for the position to search. If it is the position of the last
+     * search after the move chosen there and one reply, that reply's subtree is kept, copied to
+     * the spare pool; if it is the same position, the whole tree is kept. Otherwise the search
+     * starts from an empty tree.
+     */
+    private void findRoot(SearchBoard position) {
+        int kept = -1;
+        if (rootBoard != null && rootBoard.size() == position.size()) {
+            if (position.stoneCount() == rootBoard.stoneCount() && position.hash() == rootBoard.hash()) {
+                kept = root;
+            } else if (position.stoneCount() == rootBoard.stoneCount() + 2) {
+                kept = replyNode(position);
+            }
+        }
+        if (kept < 0) {
+            newTree();
+        } else if (kept != root) {
+            copySubtree(kept);
+        }
+        reusedPlayouts = tree.visits.get(root);
+    }
+
+    // Returns the node reached from the root by the move chosen there and the reply that gives
+    // the position, or -1 if there is none.
+    private int replyNode(SearchBoard position) {
+        int size = position.size();
+        int chosen = childWithMove(root, rootMove);
+        if (chosen < 0) {
+            return -1;
+        }
+        int first = tree.firstChild[chosen];
+        for (int c = first; c < first + tree.childCount[chosen]; c++) {
+            int reply = tree.move[c];
+            if (!position.hasStone(reply / size, reply % size, opponentColor)) {
+                continue;
+            }
+            rootBoard.place(rootMove / size, rootMove % size, me);
+            rootBoard.place(reply / size, reply % size, opponentColor);
+            boolean same = rootBoard.hash() == position.hash();
+            rootBoard.remove(reply / size, reply % size, opponentColor);
+            rootBoard.remove(rootMove / size, rootMove % size, me);
+            return same ? c : -1;
+        }
+        return -1;
+    }
+
+    private int childWithMove(int node, int move) {
+        if (tree.expansion.get(node) != EXPANDED) {
+            return -1;
+        }
+        int first = tree.firstChild[node];
+        for (int c = first; c < first + tree.childCount[node]; c++) {
+            if (tree.move[c] == move) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private void newTree() {
+        tree.used.set(0);
+        root = tree.allocate(1);
+        tree.move[root] = -1;
+    }
+
+    // Copies the subtree of a node to the spare pool, breadth first so that children stay next
+    // to each other, and makes it the tree.
+    private void copySubtree(int node) {
+        spare.used.set(0);
+        int newRoot = spare.allocate(1);
+        copyNode(node, newRoot);
+        copyFrom[0] = node;
+        copyTo[0] = newRoot;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            int from = copyFrom[head];
+            int to = copyTo[head];
+            if (tree.expansion.get(from) != EXPANDED) {
+                continue;
+            }
+            int count = tree.childCount[from];
+            int first = spare.allocate(count);
+            for (int c = 0; c < count; c++) {
+                copyNode(tree.firstChild[from] + c, first + c);
+                copyFrom[tail] = tree.firstChild[from] + c;
+                copyTo[tail] = first + c;
+                tail++;
+            }
+            spare.firstChild[to] = first;
+            spare.childCount[to] = count;
+            spare.expansion.set(to, EXPANDED);
+        }
+        NodePool old = tree;
+        tree = spare;
+        spare = old;
+        root = newRoot;
+    }
+
+    private void copyNode(int from, int to) {
+        spare.move[to] = tree.move[from];
+        spare.visits.set(to, tree.visits.get(from));
+        spare.value.set(to, tree.value.get(from));
+    }
+
+    // Runs playouts on every thread until the search is stopped.
+    private void runPlayouts() {
+        if (threads == 1) {
+            workers[0].call();
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(Arrays.asList(workers));
+        try {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop = true;
+            cancelled = true;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private int mostVisitedChild(int node) {
+        int first = tree.firstChild[node];
+        int best = first;
+        for (int c = first + 1; c < first + tree.childCount[node]; c++) {
+            if (tree.visits.get(c) > tree.visits.get(best)) {
+                best = c;
+            }
+        }
+        return tree.move[best];
+    }
+
+    /**
+     * One playout thread: its own copy of the position, the buffers its playouts work in and its
+     * random generator, all made once per search so that playouts allocate nothing.
+     */
+    private final class Playouts implements Callable<Void> {
+        // Whether this thread makes the progress reports.
+        final boolean reporter;
+        SearchBoard board;
+        // Nodes from the root down, and the moves played from the root position, in order.
+        final int[] path;
+        final int[] played;
+        final int[] candidates;
+        final long[] keys;
+        // Last move of each color in the current playout, or -1.
+        final int[] lastPlayed = new int[2];
+        final SplittableRandom random = new SplittableRandom();
+        // Playouts counted at the last progress report.
+        long reported;
+
+        Playouts(int size, boolean reporter) {
+            this.reporter = reporter;
+            path = new int[size * size + 1];
+            played = new int[size * size];
+            candidates = new int[size * size];
+            keys = new long[size * size];
+        }
+
+        @Override
+        public Void call() {
+            reported = 0;
+            while (!stop) {
+                for (int p = 0; p < CHECK_INTERVAL; p++) {
+                    playout();
+                }
+                long total = playouts.addAndGet(CHECK_INTERVAL);
+                if (cancelled || total >= playoutBudget || System.nanoTime() >= deadline) {
+                    stop = true;
+                }
+                ProgressListener listener = progressListener;
+                if (reporter && listener != null && total - reported >= REPORT_INTERVAL) {
+                    reported = total;
+                    listener.searchProgress(deepest.get(), total);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Plays one playout: down the tree by UCT, expanding the leaf reached, then to the end of
+         * the game or the playout limit by {@code rollout}, and back up the tree with the result.
+         */
+        void playout() {
+            NodePool nodes = tree;
+            int size = board.size();
+            int node = root;
+            int depth = 0;
+            int moves = 0;
+            int color = me;
+            lastPlayed[0] = -1;
+            lastPlayed[1] = -1;
+            path[0] = node;
+            nodes.visits.incrementAndGet(node);
+            while (board.winner() == SearchBoard.EMPTY && !board.isFull()) {
+                if (nodes.expansion.get(node) != EXPANDED && !expand(node, color)) {
+                    break;
+                }
+                node = select(node);
+                // Counted now and scored when the result is known: a virtual loss meanwhile.
+                nodes.visits.incrementAndGet(node);
+                int move = nodes.move[node];
+                board.place(move / size, move % size, color);
+                played[moves++] = move;
+                lastPlayed[color] = move;
+                path[++depth] = node;
+                color = 1 - color;
+            }
+            if (depth > deepest.get()) {
+                deepest.accumulateAndGet(depth, Math::max);
+            }
+            moves = rollout(color, moves);
+
+            int winner = board.winner();
+            for (int d = depth; d >= 1; d--) {
+                int mover = d % 2 == 1 ? me : opponentColor;
+                int reward = winner == SearchBoard.EMPTY ? 1 : winner == mover ? 2 : 0;
+                if (reward > 0) {
+                    nodes.value.addAndGet(path[d], reward);
+                }
+            }
+            for (int m = moves - 1; m >= 0; m--) {
+                board.remove(played[m] / size, played[m] % size, m % 2 == 0 ? me : opponentColor);
+            }
+        }
+
+        /**
+         * Expands a leaf once it has been visited often enough, unless another thread is doing
+         * so. Its children are its strongest candidate moves by threat priority; a move that
+         * makes five, or else one that stops the opponent's five, is its only child.
+         *
+         * @param node  the leaf, whose position is on the board.
+         * @param color the color to move there.
+         * @return true if the node is now expanded.
+         */
+        boolean expand(int node, int color) {
+            NodePool nodes = tree;
+            if (node != root && nodes.visits.get(node) < EXPANSION_VISITS) {
+                return false;
+            }
+            if (!nodes.expansion.compareAndSet(node, LEAF, EXPANDING)) {
+                return nodes.expansion.get(node) == EXPANDED;
+            }
+            int size = board.size();
+            int total = board.candidateMoves(candidates);
+            if (total == 0) {
+                candidates[total++] = size / 2 * size + size / 2;
+            }
+            int win = -1;
+            int block = -1;
+            int count = 0;
+            for (int c = 0; c < total && win < 0; c++) {
+                int x = candidates[c] / size;
+                int y = candidates[c] % size;
+                int attack = board.threatScore(x, y, color);
+                int defense = board.threatScore(x, y, 1 - color);
+                if (attack >= WIN_SCORE) {
+                    win = candidates[c];
+                } else if (defense >= WIN_SCORE && block < 0) {
+                    block = candidates[c];
+                }
+                keys[count++] = (long) (attack + defense) << 32 | candidates[c];
+            }
+            int forced = win >= 0 ? win : block;
+            int children = forced >= 0 ? 1 : Math.min(count, MAX_CHILDREN);
+            int first = nodes.allocate(children);
+            if (first < 0) {
+                nodes.expansion.set(node, LEAF);
+                return false;
+            }
+            if (forced >= 0) {
+                nodes.move[first] = forced;
+            } else {
+                Arrays.sort(keys, 0, count);
+                for (int c = 0; c < children; c++) {
+                    nodes.move[first + c] = (int) keys[count - 1 - c];
+                }
+            }
+            nodes.firstChild[node] = first;
+            nodes.childCount[node] = children;
+            nodes.expansion.set(node, EXPANDED);
+            return true;
+        }
+
+        // Returns the child with the highest UCT value; unvisited children come first, strongest first.
+        int select(int node) {
+            NodePool nodes = tree;
+            int first = nodes.firstChild[node];
+            double logVisits = Math.log(Math.max(1, nodes.visits.get(node)));
+            int best = first;
+            double bestValue = -1;
+            for (int c = first; c < first + nodes.childCount[node]; c++) {
+                int visits = nodes.visits.get(c);
+                if (visits == 0) {
+                    return c;
+                }
+                double value = nodes.value.get(c) / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    best = c;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Plays the game on from the leaf with light, pattern-guided moves: a five if the last
+         * move of the player to move made one possible, else a block of the opponent's five near
+         * their last move, else the strongest by threat priority of a few random candidates.
+         *
+         * @param color the color to move.
+         * @param moves the number of moves played from the root so far.
+         * @return the number of moves played from the root after the playout.
+         */
+        int rollout(int color, int moves) {
+            int size = board.size();
+            for (int step = 0; step < MAX_PLAYOUT_MOVES; step++) {
+                if (board.winner() != SearchBoard.EMPTY || board.isFull()) {
+                    break;
+                }
+                int move = fiveNear(lastPlayed[color], color);
+                if (move < 0) {
+                    move = fiveNear(lastPlayed[1 - color], 1 - color);
+                }
+                if (move < 0) {
+                    move = sampledMove(color);
+                    if (move < 0) {
+                        break;
+                    }
+                }
+                board.place(move / size, move % size, color);
+                played[moves++] = move;
+                lastPlayed[color] = move;
+                color = 1 - color;
+            }
+            return moves;
+        }
+
+        // Returns an empty position on a line through the given move where the color would make
+        // five, or -1. Any five a move makes possible is on one of these lines.
+        int fiveNear(int move, int color) {
+            if (move < 0) {
+                return -1;
+            }
+            int size = board.size();
+            for (int[] direction : DIRECTIONS) {
+                for (int k = -4; k <= 4; k++) {
+                    int x = move / size + k * direction[0];
+                    int y = move % size + k * direction[1];
+                    if (k != 0 && x >= 0 && x < size && y >= 0 && y < size && board.isEmpty(x, y)
+                            && board.wouldMakeFive(x, y, direction[0], direction[1], color)) {
+                        return x * size + y;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        // Returns the strongest by threat priority of a few random candidate moves, or -1 if there are none.
+        int sampledMove(int color) {
+            int size = board.size();
+            int total = board.candidateMoves(candidates);
+            if (total == 0) {
+                return -1;
+            }
+            int best = -1;
+            int bestPriority = -1;
+            for (int s = 0; s < PLAYOUT_SAMPLES; s++) {
+                int move = candidates[random.nextInt(total)];
+                int x = move / size;
+                int y = move % size;
+                int priority = board.threatScore(x, y, color) + board.threatScore(x, y, 1 - color);
+                if (priority > bestPriority) {
+                    best = move;
+                    bestPriority = priority;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Announces a search. Call this on the game's thread before handing {@code bestMove} to the
+     * search thread, so that a {@code cancel} made before the search has started still stops it.
+     *
+     * @return the number of the search, to pass to {@code bestMove(SearchBoard, long)}.
+     */
+    @Override
+    public long beginSearch() {
+        synchronized (cancelLock) {
+            return ++announcedSearches;
+        }
+    }
+
+    /**
+     * Determines the best move for a search announced with {@code beginSearch}. It returns null
+     * at once if the search was cancelled before it started.
+     *
+     * @param position the position to search; it is searched in place and restored afterwards.
+     * @param search   the number beginSearch returned.
+     * @return the coordinates [x, y] of the best move, or null if the search was cancelled.
+     */
+    @Override
+    public int[] bestMove(SearchBoard position, long search) {
+        synchronized (cancelLock) {
+            requestedSearch = search;
+        }
+        return bestMove(position);
+    }
+
+    /**
+     * Stops a search that is running on another thread. {@code bestMove} then returns null as
+     * soon as every thread finishes its current batch of playouts. Searches announced with
+     * {@code beginSearch} that have not started yet return null at once.
+     */
+    @Override
+    public void cancel() {
+        synchronized (cancelLock) {
+            lastCancelledSearch = announcedSearches;
+            cancelled = true;
+            stop = true;
+        }
+    }
+
+    @Override
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    // Returns the number of playouts run by the last call to bestMove, over all threads.
+    @Override
+    public long getNodesSearched() {
+        return playouts.get();
+    }
+
+    // Returns the number of playouts the tree already held for the position of the last call
+    // to bestMove, kept from earlier searches.
+    public long getReusedPlayouts() {
+        return reusedPlayouts;
+    }
+
+    // Returns the number of nodes in the tree.
+    public int getTreeSize() {
+        return Math.min(tree.used.get(), tree.capacity);
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the time one call to {@code bestMove} may take, in milliseconds.
+     */
+    public void setTimeBudget(long millis) {
+        this.timeBudgetMillis = millis;
+    }
+
+    /**
+     * Sets the number of playouts one call to {@code bestMove} may run, over all threads. The
+     * playouts run in batches, so a few more than this may run.
+     */
+    public void setPlayoutBudget(long playouts) {
+        this.playoutBudget = playouts;
+    }
+}
@@ -0,0 +1,208 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that taking moves back and making them again leaves a board exactly as if its moves had
+ * been played afresh. Every game makes random changes with {@code placeStone}, mostly stones on
+ * empty places but also replacements and removals, mixed with long runs of {@code undoMove} and
+ * {@code redoMove}. After each run the board is compared with a new board on which the changes
+ * still in effect are replayed: every place, the stone count, the index of taken places in
+ * order, the last move, the winner, the winning row and the hash of the search board copy. Each
+ * game ends by taking every change back and making them all again. The search board's own
+ * place and remove, which the search uses as its undo, are checked the same way.
+ * Exits with status 1 if any check fails.
+ * Usage: java -Djava.awt.headless=true MoveHistoryCheck [games] [changesPerGame] [boardSize]
+ */
+public class MoveHistoryCheck {
+    // The longest run of undo or redo steps made at once.
+    private static final int MAX_RUN = 40;
+    // On average one change in this many is followed by a run of undo or redo steps; rarely
+    // enough that the board still fills up, since a change after undo steps forgets them.
+    private static final int RUN_INTERVAL = 24;
+
+    // How many games made a five at some point, so that the winning state was checked.
+    private static int gamesWithFive = 0;
+    // Most changes fall in a square this wide in the middle of the board, so that fives are made
+    // and broken often enough to check the winning state.
+    private static final int CROWDED_AREA = 9;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int changes = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int boardSize = args.length > 2 ? Integer.parseInt(args[2]) : ActualBoard.BOARD_SIZE;
+        long start = System.nanoTime();
+        int failedGames = 0;
+        long steps = 0;
+        for (int game = 0; game < games; game++) {
+            List<String> failures = new ArrayList<>();
+            steps += playGame(new Random(game), changes, boardSize, failures);
+            checkSearchBoard(new Random(game), Math.min(boardSize, SearchBoard.MAX_SIZE), failures);
+            if (!failures.isEmpty()) {
+                failedGames++;
+                System.out.println("Game " + game + ": " + failures.size() + " failed checks, first: " + failures.get(0));
+            }
+        }
+        System.out.printf("%d games (%d made a five), %d changes and undo/redo steps in %.0f ms: %d games failed%n",
+                games, gamesWithFive, steps, (System.nanoTime() - start) / 1e6, failedGames);
+        if (gamesWithFive == 0) {
+            System.out.println("No game made a five, so the winning state went unchecked");
+        }
+        System.exit(failedGames == 0 && gamesWithFive > 0 ? 0 : 1);
+    }
+
+    // Plays one game and returns how many changes, undo and redo steps it made.
+    private static long playGame(Random random, int changes, int boardSize, List<String> failures) {
+        ActualBoard board = new ActualBoard(boardSize);
+        PlayerInterface black = new HumanPlayer(Stone.BLACK, "Black");
+        PlayerInterface white = new HumanPlayer(Stone.WHITE, "White");
+        int size = board.sizeBoard();
+        int area = Math.min(size, CROWDED_AREA);
+        int areaStart = (size - area) / 2;
+        // The changes made, as x, y and player, and how many of them are in effect.
+        List<Object[]> made = new ArrayList<>();
+        int inEffect = 0;
+        long steps = 0;
+        boolean madeFive = false;
+
+        for (int change = 1; change <= changes; change++) {
+            boolean crowded = random.nextInt(4) != 0;
+            int x = crowded ? areaStart + random.nextInt(area) : random.nextInt(size);
+            int y = crowded ? areaStart + random.nextInt(area) : random.nextInt(size);
+            int action = random.nextInt(20);
+            PlayerInterface player;
+            if (action < 17) {
+                if (board.isOccupied(x, y)) {
+                    continue;
+                }
+                player = board.stoneCount() % 2 == 0 ? black : white;
+            } else if (action < 19) {
+                player = null;
+            } else {
+                player = board.playerAt(x, y) == black ? white : black;
+            }
+            board.placeStone(x, y, player);
+            while (made.size() > inEffect) {
+                made.remove(made.size() - 1);
+            }
+            made.add(new Object[]{x, y, player});
+            inEffect++;
+            steps++;
+            madeFive |= board.getWinner() != null;
+            check(failures, change, !board.canRedo(), "a new change did not forget the changes taken back");
+
+            if (random.nextInt(RUN_INTERVAL) == 0) {
+                int run = 1 + random.nextInt(MAX_RUN);
+                boolean undo = random.nextBoolean() || !board.canRedo();
+                for (int i = 0; i < run; i++) {
+                    ActualBoard.Place place = undo ? board.undoMove() : board.redoMove();
+                    if (place == null) {
+                        check(failures, change, undo ? inEffect == 0 : inEffect == made.size(),
+                                "history ended early");
+                        break;
+                    }
+                    Object[] expected = made.get(undo ? inEffect - 1 : inEffect);
+                    check(failures, change, place.x == (int) expected[0] && place.y == (int) expected[1],
+                            (undo ? "undo" : "redo") + " changed " + place + " out of order");
+                    inEffect += undo ? -1 : 1;
+                    steps++;
+                }
+                compareWithReplay(failures, change, board, made, inEffect);
+            }
+        }
+
+        // Take everything back, then make it all again.
+        while (board.undoMove() != null) {
+            steps++;
+        }
+        compareWithReplay(failures, changes, board, made, 0);
+        while (board.redoMove() != null) {
+            steps++;
+        }
+        compareWithReplay(failures, changes, board, made, made.size());
+        if (madeFive) {
+            gamesWithFive++;
+        }
+        return steps;
+    }
+
+    // Compares the board with a new board on which the first inEffect changes are replayed.
+    private static void compareWithReplay(List<String> failures, int change, ActualBoard board,
+                                          List<Object[]> made, int inEffect) {
+        ActualBoard replay = new ActualBoard(board.sizeBoard());
+        for (int m = 0; m < inEffect; m++) {
+            replay.placeStone((int) made.get(m)[0], (int) made.get(m)[1], (PlayerInterface) made.get(m)[2]);
+        }
+        int size = board.sizeBoard();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                check(failures, change, board.playerAt(i, j) == replay.playerAt(i, j),
+                        "grid differs from the replay at (" + i + ", " + j + ")");
+            }
+        }
+        check(failures, change, board.stoneCount() == replay.stoneCount(),
+                "stone count " + board.stoneCount() + ", replay has " + replay.stoneCount());
+        check(failures, change, samePlaces(board.occupiedPlaces(), replay.occupiedPlaces()),
+                "index of taken places differs from the replay");
+        check(failures, change, board.getLastMoveX() == replay.getLastMoveX() && board.getLastMoveY() == replay.getLastMoveY(),
+                "last move differs from the replay");
+        check(failures, change, board.getWinner() == replay.getWinner(), "winner differs from the replay");
+        check(failures, change, board.winningRow() == null ? replay.winningRow() == null
+                        : replay.winningRow() != null && samePlaces(board.winningRow(), replay.winningRow()),
+                "winning row differs from the replay");
+        check(failures, change, SearchBoard.fromBoard(board).hash() == SearchBoard.fromBoard(replay).hash(),
+                "search board hash differs from the replay");
+        check(failures, change, board.canUndo() == (inEffect > 0), "canUndo is wrong");
+    }
+
+    private static boolean samePlaces(List<ActualBoard.Place> a, List<ActualBoard.Place> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).x != b.get(i).x || a.get(i).y != b.get(i).y) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Places random stones on a search board and removes them in reverse, checking after every
+    // removal that the hash, scores and candidates are those the board had at that point.
+    private static void checkSearchBoard(Random random, int size, List<String> failures) {
+        SearchBoard board = new SearchBoard(size);
+        int moves = Math.min(size * size / 2, 120);
+        int[][] placed = new int[moves][];
+        long[] hashes = new long[moves + 1];
+        int[][] scores = new int[moves + 1][];
+        int[] candidates = new int[moves + 1];
+        for (int m = 0; m < moves; m++) {
+            hashes[m] = board.hash();
+            scores[m] = new int[]{board.score(SearchBoard.BLACK), board.score(SearchBoard.WHITE)};
+            candidates[m] = board.candidateCount();
+            int x;
+            int y;
+            do {
+                x = random.nextInt(size);
+                y = random.nextInt(size);
+            } while (!board.isEmpty(x, y));
+            board.place(x, y, m % 2);
+            placed[m] = new int[]{x, y};
+        }
+        for (int m = moves - 1; m >= 0; m--) {
+            board.remove(placed[m][0], placed[m][1], m % 2);
+            check(failures, m, board.hash() == hashes[m], "search board hash not restored by remove");
+            check(failures, m, board.score(SearchBoard.BLACK) == scores[m][0]
+                    && board.score(SearchBoard.WHITE) == scores[m][1], "search board scores not restored by remove");
+            check(failures, m, board.candidateCount() == candidates[m], "search board candidates not restored by remove");
+        }
+        check(failures, 0, board.stoneCount() == 0 && board.winner() == SearchBoard.EMPTY,
+                "search board not empty after removing every stone");
+    }
+
+    private static void check(List<String> failures, int step, boolean ok, String message) {
+        if (!ok) {
+            failures.add("change " + step + ": " + message);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class OmokGameDesign extends JPanel {
 
@@ -13,15 +16,42 @@ public class OmokGameDesign extends JPanel {
     private final PlayerUpdates player1Panel;
     private final PlayerUpdates player2Panel;
 
+    // The AI searches on this thread so the window stays responsive while it thinks.
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Omok AI search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> aiSearch;
+    // Increased whenever a search is started or cancelled, so results of stale searches are ignored.
+    private int searchGeneration = 0;
+    // True while a move sent to the game server is waiting for the server's reply.
+    private boolean serverRequestPending = false;
+    // Set -Domok.ponder=false to keep the AI from searching while the human thinks.
+    private static final boolean PONDER = !"false".equals(System.getProperty("omok.ponder"));
+    // The human reply the AI is pondering, or null if it is not pondering; the AI's answer to it
+    // if the ponder search finished before the human moved; and whether the human has played
+    // the reply and the answer is awaited.
+    private int[] ponderReply;
+    private int[] ponderAnswer;
+    private boolean ponderHit;
+
     // Constructor. Initializes the game panel, sets up the players and panels, and prepares the game board.
     public OmokGameDesign(PlayerUpdates player1Panel, PlayerInterface player1, PlayerUpdates player2Panel, PlayerInterface player2, boolean isAIGame) {
+        this(player1Panel, player1, player2Panel, player2, isAIGame, ActualBoard.BOARD_SIZE);
+    }
+
+    // Constructor for a board of the given number of rows and columns.
+    public OmokGameDesign(PlayerUpdates player1Panel, PlayerInterface player1, PlayerUpdates player2Panel, PlayerInterface player2, boolean isAIGame, int boardSize) {
         this.isAIGame = isAIGame;
-        actualBoard = new ActualBoard();
+        actualBoard = new ActualBoard(boardSize);
         this.setLayout(new BorderLayout());
+        // The board pans and zooms itself, so even the largest boards fit in the window.
         this.add(actualBoard, BorderLayout.CENTER);
 
         this.player1 = player1;
-        this.player2 = isAIGame ? new ComputerPlayer(Stone.WHITE, actualBoard, player1) : player2;
+        // An AI game uses the engine it is given, or the minimax player if it is given none.
+        this.player2 = isAIGame && !(player2 instanceof Engine) ? new ComputerPlayer(Stone.WHITE, actualBoard, player1) : player2;
 
         this.player1Panel = player1Panel;
         this.player2Panel = player2Panel;
@@ -38,10 +68,12 @@ public class OmokGameDesign extends JPanel {
         actualBoard.addMouseListener(new java.awt.event.MouseAdapter() {
             @Override
             public void mouseClicked(java.awt.event.MouseEvent e) {
-                if (isGameOver) return;
+                if (isGameOver || currentPlayer instanceof Engine || serverRequestPending) return;
 
-                int col = e.getY() / ActualBoard.TILE_SIZE;
-                int row = e.getX() / ActualBoard.TILE_SIZE;
+                ActualBoard.Place place = actualBoard.placeAt(e.getX(), e.getY());
+                if (place == null) return;
+                int col = place.x;
+                int row = place.y;
 
                 if (actualBoard.isOccupied(col, row)) {
                     JOptionPane.showMessageDialog(SwingUtilities.getWindowAncestor(OmokGameDesign.this),
@@ -86,19 +118,37 @@ public class OmokGameDesign extends JPanel {
                 player2Panel.moveMade(new int[]{x, y});
             }
             detectWin();
-            if (!isGameOver && isAIGame && currentPlayer instanceof ComputerPlayer) {
-                SwingUtilities.invokeLater(this::aiMakeMove);
+            if (!isGameOver && isAIGame && currentPlayer instanceof Engine) {
+                answerMove((Engine) currentPlayer, x, y);
             }
         }
     }
 
-    // Processes the response from the server for a Java client player's move.
+    // Sends the move to the server without blocking the Event Dispatch Thread. The server's reply
+    // is processed back on the Event Dispatch Thread, unless the game was reset in the meantime.
     private void handleServerResponse(int x, int y, JavaClientPlayer javaClientPlayer) {
         // Replace 'gameID' with actual game ID from javaClientPlayer
         String gameID = javaClientPlayer.getGameID();
         String query = String.format("play/?pid=%s&x=%d&y=%d", gameID, x, y);
 
-        String response = javaClientPlayer.getClient().sendGet(query);
+        int generation = searchGeneration;
+        serverRequestPending = true;
+        javaClientPlayer.getClient().sendGetAsync(query).whenComplete((response, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (generation != searchGeneration) {
+                        return;
+                    }
+                    serverRequestPending = false;
+                    if (error != null) {
+                        System.err.println("Error sending move to server: " + error.getCause()); // Error logging
+                        return;
+                    }
+                    processServerMove(javaClientPlayer, response);
+                }));
+    }
+
+    // Processes the response from the server for a Java client player's move.
+    private void processServerMove(JavaClientPlayer javaClientPlayer, String response) {
         int[] serverMove = javaClientPlayer.parseMove(response);
 
         if (serverMove != null) {
@@ -128,19 +178,146 @@ public class OmokGameDesign extends JPanel {
         } else {
             switchPlayer();
         }
-        actualBoard.repaint();
         player1Panel.highlight(currentPlayer == player1);
         player2Panel.highlight(currentPlayer == player2);
     }
 
-    // Handles making a move for the AI player.
-    private void aiMakeMove() {
-        int[] aiMove = ((ComputerPlayer) currentPlayer).bestMove();
+    // Answers the human's move at (x, y). If the AI was pondering that very move, the ponder
+    // search becomes the answer, played at once if it has already finished; otherwise pondering
+    // stops and a new search starts, with the transposition table the ponder search filled.
+    // Only the minimax player ponders.
+    private void answerMove(Engine engine, int x, int y) {
+        if (!(engine instanceof ComputerPlayer)) {
+            startAiMove(engine);
+            return;
+        }
+        ComputerPlayer computer = (ComputerPlayer) engine;
+        int[] reply = ponderReply;
+        if (reply != null && reply[0] == x && reply[1] == y) {
+            if (ponderAnswer != null) {
+                int[] answer = ponderAnswer;
+                ponderReply = null;
+                ponderAnswer = null;
+                aiMakeMove(answer);
+            } else {
+                ponderHit = true;
+                computer.setProgressListener(progressListener(searchGeneration));
+                computer.ponderHit();
+            }
+            return;
+        }
+        if (reply != null) {
+            computer.stopPondering();
+            ponderReply = null;
+            ponderAnswer = null;
+        }
+        startAiMove(computer);
+    }
+
+    // Starts searching, on the search thread, the AI's answer to the human reply it predicts,
+    // while the human thinks. See answerMove for how the search is used.
+    private void startPonder(ComputerPlayer computer) {
+        SearchBoard snapshot = SearchBoard.fromBoard(actualBoard);
+        int[] reply = computer.predictReply(snapshot);
+        if (reply == null) {
+            return;
+        }
+        int generation = ++searchGeneration;
+        ponderReply = toGameBoard(snapshot, reply);
+        ponderAnswer = null;
+        ponderHit = false;
+        computer.setProgressListener(null);
+        long search = computer.beginPonder();
+        aiSearch = aiExecutor.submit(() -> {
+            try {
+                int[] answer = toGameBoard(snapshot, computer.ponder(snapshot, reply, search));
+                SwingUtilities.invokeLater(() -> {
+                    if (generation != searchGeneration) {
+                        return;
+                    }
+                    if (ponderHit) {
+                        ponderReply = null;
+                        aiMakeMove(answer);
+                    } else {
+                        ponderAnswer = answer;
+                    }
+                });
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Reports the progress of a search on the AI's panel, unless the search was cancelled.
+    private Engine.ProgressListener progressListener(int generation) {
+        return (depth, nodes) -> SwingUtilities.invokeLater(() -> {
+            if (generation == searchGeneration) {
+                player2Panel.showProgress(depth, nodes);
+            }
+        });
+    }
+
+    // Starts the AI search on the search thread with a snapshot of the board. Progress and the
+    // chosen move are handed back to the Event Dispatch Thread, unless the search was cancelled.
+    private void startAiMove(Engine engine) {
+        SearchBoard snapshot = SearchBoard.fromBoard(actualBoard);
+        int generation = ++searchGeneration;
+        engine.setProgressListener(progressListener(generation));
+        long search = engine.beginSearch();
+        aiSearch = aiExecutor.submit(() -> {
+            try {
+                int[] aiMove = toGameBoard(snapshot, engine.bestMove(snapshot, search));
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == searchGeneration) {
+                        aiMakeMove(aiMove);
+                    }
+                });
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Converts a move found on a snapshot, which is a window of boards too large to search
+    // whole, to game board coordinates. A null move stays null.
+    private static int[] toGameBoard(SearchBoard snapshot, int[] move) {
+        return move == null ? null : new int[]{move[0] + snapshot.originX(), move[1] + snapshot.originY()};
+    }
+
+    // Stops the AI search if one is running and makes sure its move is never played.
+    public void cancelAiMove() {
+        searchGeneration++;
+        if (aiSearch != null) {
+            aiSearch.cancel(true);
+            aiSearch = null;
+        }
+        if (player2 instanceof ComputerPlayer) {
+            ((ComputerPlayer) player2).stopPondering();
+        }
+        if (player2 instanceof Engine) {
+            ((Engine) player2).cancel();
+        }
+        ponderReply = null;
+        ponderAnswer = null;
+    }
+
+    // Cancels any AI search and stops the search thread, for when the game is left.
+    public void shutdown() {
+        cancelAiMove();
+        aiExecutor.shutdownNow();
+    }
+
+    // Handles making a move for the AI player, on the Event Dispatch Thread.
+    private void aiMakeMove(int[] aiMove) {
+        aiSearch = null;
         if (aiMove != null) {
             actualBoard.placeStone(aiMove[0], aiMove[1], currentPlayer);
             currentPlayer.setLastMove(aiMove);
             player2Panel.moveMade(aiMove);
             detectWin();
+            if (!isGameOver && PONDER && player2 instanceof ComputerPlayer) {
+                startPonder((ComputerPlayer) player2);
+            }
         }
     }
 
@@ -151,6 +328,67 @@ public class OmokGameDesign extends JPanel {
         player2Panel.highlight(currentPlayer == player2);
     }
 
+    /**
+     * Takes back the last move. In a game against the AI, the AI's search is stopped and moves
+     * are taken back until it is the human's turn again, usually the AI's answer and the human's
+     * move before it. Games against the server cannot take moves back, since the server keeps
+     * its own board.
+     */
+    public void undoMove() {
+        if (player2 instanceof JavaClientPlayer) {
+            JOptionPane.showMessageDialog(SwingUtilities.getWindowAncestor(this),
+                    "Moves cannot be taken back in a game against the server.");
+            return;
+        }
+        if (!actualBoard.canUndo()) {
+            return;
+        }
+        cancelAiMove();
+        do {
+            currentPlayer = actualBoard.lastMover();
+            actualBoard.undoMove();
+        } while (currentPlayer instanceof Engine && actualBoard.canUndo());
+        isGameOver = false;
+        afterHistoryMove();
+    }
+
+    /**
+     * Makes again the move last taken back. In a game against the AI, the AI's answer is made
+     * again too if it was taken back with the human's move; otherwise the AI searches for one.
+     */
+    public void redoMove() {
+        if (isGameOver || !actualBoard.canRedo() || actualBoard.nextRedoMover() != currentPlayer) {
+            return;
+        }
+        cancelAiMove();
+        do {
+            actualBoard.redoMove();
+            detectWin();
+        } while (!isGameOver && currentPlayer instanceof Engine && actualBoard.nextRedoMover() == currentPlayer);
+        if (!isGameOver && currentPlayer instanceof Engine) {
+            startAiMove((Engine) currentPlayer);
+        } else {
+            afterHistoryMove();
+        }
+    }
+
+    // Shows whose turn it is after moves were taken back or made again, and lets the AI ponder
+    // on the human's time again. Pondering starts only once the search cancelled on the way has
+    // finished on the search thread, so that the two never overlap.
+    private void afterHistoryMove() {
+        player1Panel.highlight(currentPlayer == player1);
+        player2Panel.highlight(currentPlayer == player2);
+        if (!isGameOver && PONDER && isAIGame && currentPlayer == player1 && player2 instanceof ComputerPlayer
+                && actualBoard.stoneCount() > 0) {
+            int generation = searchGeneration;
+            aiSearch = aiExecutor.submit(() -> SwingUtilities.invokeLater(() -> {
+                if (generation == searchGeneration) {
+                    startPonder((ComputerPlayer) player2);
+                }
+            }));
+        }
+    }
+
     // Resets the game to its initial state.
     public void resetGame() {
         int confirm = JOptionPane.showConfirmDialog(this,
@@ -158,6 +396,8 @@ public class OmokGameDesign extends JPanel {
                 "Reset Game", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
+            cancelAiMove();
+            serverRequestPending = false;
             actualBoard.clear();
             if (currentPlayer != player1) {
                 switchPlayer();
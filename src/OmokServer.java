@@ -0,0 +1,317 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * An Omok game server that speaks the same protocol as the remote server {@code JavaClientPlayer}
+ * plays against, so games can be hosted locally:
+ * <ul>
+ *     <li>{@code new/?strategy=Smart|Random} starts a game and answers
+ *     {@code {"response":true,"pid":"..."}}.</li>
+ *     <li>{@code play/?pid=..&x=..&y=..} places the client's black stone, answers with the
+ *     server's white stone and reports wins and draws:
+ *     {@code {"response":true,"ack_move":{..},"move":{"x":..,"y":..,"isWin":..,"isDraw":..,"row":[..]}}}.
+ *     There is no {@code move} when the client's stone ended the game.</li>
+ * </ul>
+ * Errors are answered with {@code {"response":false,"reason":"..."}}.
+ * <p>
+ * Each game only keeps a {@code SearchBoard}, so thousands of games fit in memory. The "Smart"
+ * strategy searches with a {@code ComputerPlayer} owned by the request thread, which is reused for
+ * every game that thread serves. Requests run on a fixed pool with one thread per core, since
+ * searching is CPU bound and the JDK this project targets has no virtual threads. Games that see no
+ * request for the idle timeout are dropped.
+ * Usage: java OmokServer [port] [maxDepth] [timeBudgetMillis]
+ */
+public class OmokServer {
+    public static final int DEFAULT_PORT = 8080;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+    public static final int DEFAULT_MAX_DEPTH = 4;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 200;
+    public static final String SMART = "Smart";
+    public static final String RANDOM = "Random";
+
+    // Transposition table size of each request thread's ComputerPlayer.
+    private static final long ENGINE_TT_BYTES = 4L * 1024 * 1024;
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ScheduledExecutorService evictor;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long idleTimeoutNanos;
+    private final int maxDepth;
+    private final long timeBudgetMillis;
+    private final ThreadLocal<ComputerPlayer> engines;
+
+    // One game in progress: the board and when the client last made a request for it.
+    private static final class Session {
+        final String strategy;
+        final SearchBoard board = new SearchBoard(ActualBoard.BOARD_SIZE);
+        volatile long lastAccessNanos = System.nanoTime();
+
+        Session(String strategy) {
+            this.strategy = strategy;
+        }
+    }
+
+    /**
+     * Creates a server on the given port. It does not accept requests until {@code start} is called.
+     *
+     * @param port              the port to listen on, or 0 for any free port.
+     * @param maxDepth          the deepest the "Smart" strategy searches.
+     * @param timeBudgetMillis  the time the "Smart" strategy may search for each move, in milliseconds.
+     * @param idleTimeoutMillis how long a game may go without a request before it is dropped.
+     * @throws IOException if the port cannot be bound.
+     */
+    public OmokServer(int port, int maxDepth, long timeBudgetMillis, long idleTimeoutMillis) throws IOException {
+        this.maxDepth = maxDepth;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.engines = ThreadLocal.withInitial(() -> {
+            ComputerPlayer engine = new ComputerPlayer(Stone.WHITE, null, null, ENGINE_TT_BYTES);
+            engine.setMaxDepth(this.maxDepth);
+            engine.setTimeBudget(this.timeBudgetMillis);
+            return engine;
+        });
+
+        AtomicInteger handlerCount = new AtomicInteger();
+        handlers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "Omok server " + handlerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Omok session evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(handlers);
+        server.createContext("/new/", exchange -> respond(exchange, () -> newGame(queryOf(exchange))));
+        server.createContext("/play/", exchange -> respond(exchange, () -> play(queryOf(exchange))));
+    }
+
+    public void start() {
+        long sweepMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) / 4);
+        evictor.scheduleAtFixedRate(this::evictIdleSessions, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        evictor.shutdownNow();
+        handlers.shutdownNow();
+    }
+
+    // Returns the port the server listens on, which is useful when it was created with port 0.
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    // Drops every game that has seen no request for the idle timeout.
+    private void evictIdleSessions() {
+        long now = System.nanoTime();
+        sessions.values().removeIf(session -> now - session.lastAccessNanos > idleTimeoutNanos);
+    }
+
+    private String newGame(Map<String, String> query) {
+        String strategy = query.get("strategy");
+        if (strategy == null) {
+            return error("Strategy not specified");
+        }
+        if (!strategy.equalsIgnoreCase(SMART) && !strategy.equalsIgnoreCase(RANDOM)) {
+            return error("Unknown strategy");
+        }
+        String pid = UUID.randomUUID().toString();
+        sessions.put(pid, new Session(strategy.equalsIgnoreCase(SMART) ? SMART : RANDOM));
+        return "{\"response\":true,\"pid\":\"" + pid + "\"}";
+    }
+
+    private String play(Map<String, String> query) {
+        String pid = query.get("pid");
+        if (pid == null) {
+            return error("Pid not specified");
+        }
+        Session session = sessions.get(pid);
+        if (session == null) {
+            return error("Unknown pid");
+        }
+        int x;
+        int y;
+        try {
+            x = Integer.parseInt(query.getOrDefault("x", ""));
+        } catch (NumberFormatException e) {
+            return error("Invalid x coordinate");
+        }
+        try {
+            y = Integer.parseInt(query.getOrDefault("y", ""));
+        } catch (NumberFormatException e) {
+            return error("Invalid y coordinate");
+        }
+        SearchBoard board = session.board;
+        if (x < 0 || x >= board.size()) {
+            return error("Invalid x coordinate, " + x);
+        }
+        if (y < 0 || y >= board.size()) {
+            return error("Invalid y coordinate, " + y);
+        }
+
+        // A client could send two moves for the same game at once; they are played one at a time.
+        synchronized (session) {
+            session.lastAccessNanos = System.nanoTime();
+            if (board.winner() != SearchBoard.EMPTY || board.isFull()) {
+                return error("Game over");
+            }
+            if (!board.isEmpty(x, y)) {
+                return error("Place not empty, (" + x + ", " + y + ")");
+            }
+            board.place(x, y, SearchBoard.BLACK);
+            StringBuilder json = new StringBuilder("{\"response\":true,\"ack_move\":");
+            if (appendMove(json, board, x, y, SearchBoard.BLACK)) {
+                sessions.remove(pid);
+                return json.append('}').toString();
+            }
+
+            int[] reply = session.strategy.equals(SMART) ? engines.get().bestMove(board) : randomMove(board);
+            board.place(reply[0], reply[1], SearchBoard.WHITE);
+            json.append(",\"move\":");
+            if (appendMove(json, board, reply[0], reply[1], SearchBoard.WHITE)) {
+                sessions.remove(pid);
+            }
+            return json.append('}').toString();
+        }
+    }
+
+    // Picks a uniformly random empty cell; the board must not be full.
+    private static int[] randomMove(SearchBoard board) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int size = board.size();
+        while (true) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if (board.isEmpty(x, y)) {
+                return new int[]{x, y};
+            }
+        }
+    }
+
+    /**
+     * Appends the JSON object for a move that was just placed.
+     *
+     * @return true if the move ended the game.
+     */
+    private static boolean appendMove(StringBuilder json, SearchBoard board, int x, int y, int color) {
+        boolean isWin = board.isWonBy(color);
+        boolean isDraw = !isWin && board.isFull();
+        json.append("{\"x\":").append(x).append(",\"y\":").append(y)
+                .append(",\"isWin\":").append(isWin)
+                .append(",\"isDraw\":").append(isDraw)
+                .append(",\"row\":[");
+        if (isWin) {
+            appendWinningRow(json, board, x, y, color);
+        }
+        json.append("]}");
+        return isWin || isDraw;
+    }
+
+    // Appends the cells of the five in a row through (x, y) as a flat list x1, y1, x2, y2, ...
+    private static void appendWinningRow(StringBuilder json, SearchBoard board, int x, int y, int color) {
+        for (int[] direction : DIRECTIONS) {
+            int dx = direction[0];
+            int dy = direction[1];
+            int back = 0;
+            while (inside(board, x - (back + 1) * dx, y - (back + 1) * dy)
+                    && board.hasStone(x - (back + 1) * dx, y - (back + 1) * dy, color)) {
+                back++;
+            }
+            int forward = 0;
+            while (inside(board, x + (forward + 1) * dx, y + (forward + 1) * dy)
+                    && board.hasStone(x + (forward + 1) * dx, y + (forward + 1) * dy, color)) {
+                forward++;
+            }
+            if (back + forward + 1 >= 5) {
+                for (int i = 0; i < 5; i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    json.append(x + (i - back) * dx).append(',').append(y + (i - back) * dy);
+                }
+                return;
+            }
+        }
+    }
+
+    private static boolean inside(SearchBoard board, int x, int y) {
+        return x >= 0 && x < board.size() && y >= 0 && y < board.size();
+    }
+
+    private static String error(String reason) {
+        return "{\"response\":false,\"reason\":\"" + reason + "\"}";
+    }
+
+    private static Map<String, String> queryOf(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    // Sends the JSON the handler produces; a handler that fails is answered with an error.
+    private static void respond(HttpExchange exchange, Supplier<String> handler) throws IOException {
+        String json;
+        try {
+            json = handler.get();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            json = error("Internal error");
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_DEPTH;
+        long timeBudget = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_TIME_BUDGET_MILLIS;
+        // Answer small responses right away instead of waiting for the client's ACK.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        OmokServer server = new OmokServer(port, maxDepth, timeBudget, DEFAULT_IDLE_TIMEOUT_MILLIS);
+        server.start();
+        System.out.println("Omok server listening on http://localhost:" + server.getPort() + "/");
+        System.out.println("Play against it with: java -Domok.server=http://localhost:" + server.getPort() + "/ Main");
+    }
+}
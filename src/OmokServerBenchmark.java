@@ -0,0 +1,204 @@
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many moves per second an {@code OmokServer} serves with many games open at once.
+ * All games are started before the first move, so every one of them is a live session while the
+ * moves are played. Client threads then take turns over their share of the games, one move per
+ * game per round, playing random moves near the stones already on the board, until every game
+ * has ended or reached the move limit.
+ * Usage: java OmokServerBenchmark [games] [clientThreads] [movesPerGame] [maxDepth] [timeBudgetMillis]
+ */
+public class OmokServerBenchmark {
+
+    // One game as the client sees it.
+    private static final class Game {
+        final String pid;
+        final SearchBoard board = new SearchBoard(ActualBoard.BOARD_SIZE);
+        int moves = 0;
+
+        Game(String pid) {
+            this.pid = pid;
+        }
+    }
+
+    // What one client thread measured.
+    private static final class ClientResult {
+        final long[] latencies;
+        final int requests;
+        final int errors;
+        final int finished;
+
+        ClientResult(long[] latencies, int requests, int errors, int finished) {
+            this.latencies = latencies;
+            this.requests = requests;
+            this.errors = errors;
+            this.finished = finished;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int clientThreads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int movesPerGame = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int maxDepth = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        long timeBudget = args.length > 4 ? Long.parseLong(args[4]) : OmokServer.DEFAULT_TIME_BUDGET_MILLIS;
+
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        OmokServer server = new OmokServer(0, maxDepth, timeBudget, OmokServer.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getPort() + "/";
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("Games: %d, client threads: %d, moves per game: %d, depth: %d, budget: %d ms%n",
+                games, clientThreads, movesPerGame, maxDepth, timeBudget);
+
+        ExecutorService clients = Executors.newFixedThreadPool(clientThreads);
+        List<JavaClient> connections = new ArrayList<>();
+        List<List<Game>> shares = new ArrayList<>();
+        for (int t = 0; t < clientThreads; t++) {
+            connections.add(new JavaClient(baseUrl, JavaClient.DEFAULT_CONNECT_TIMEOUT, JavaClient.DEFAULT_READ_TIMEOUT));
+            shares.add(new ArrayList<>());
+        }
+
+        long start = System.nanoTime();
+        List<Future<?>> started = new ArrayList<>();
+        for (int t = 0; t < clientThreads; t++) {
+            JavaClient client = connections.get(t);
+            List<Game> share = shares.get(t);
+            int count = games / clientThreads + (t < games % clientThreads ? 1 : 0);
+            started.add(clients.submit(() -> {
+                for (int g = 0; g < count; g++) {
+                    share.add(new Game(new JSONObject(client.sendGet("new/?strategy=Smart")).getString("pid")));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : started) {
+            future.get();
+        }
+        System.out.printf("Started %d games in %.0f ms; open sessions: %d%n",
+                games, (System.nanoTime() - start) / 1e6, server.getSessionCount());
+
+        start = System.nanoTime();
+        List<Future<ClientResult>> results = new ArrayList<>();
+        for (int t = 0; t < clientThreads; t++) {
+            JavaClient client = connections.get(t);
+            List<Game> share = shares.get(t);
+            long seed = t;
+            results.add(clients.submit(() -> playAll(client, share, movesPerGame, new Random(seed))));
+        }
+        List<ClientResult> measured = new ArrayList<>();
+        for (Future<ClientResult> future : results) {
+            measured.add(future.get());
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+        clients.awaitTermination(10, TimeUnit.SECONDS);
+
+        int requests = 0;
+        int errors = 0;
+        int finished = 0;
+        long[] latencies = new long[0];
+        for (ClientResult result : measured) {
+            requests += result.requests;
+            errors += result.errors;
+            finished += result.finished;
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + result.latencies.length);
+            System.arraycopy(result.latencies, 0, latencies, offset, result.latencies.length);
+        }
+        Arrays.sort(latencies);
+        System.out.printf("Moves: %d in %.0f ms, %.0f moves/s%n", requests, elapsed / 1e6, requests / (elapsed / 1e9));
+        System.out.printf("Latency ms: mean %.2f, p50 %.2f, p99 %.2f, max %.2f%n",
+                Arrays.stream(latencies).average().orElse(0) / 1e6, percentile(latencies, 0.50) / 1e6,
+                percentile(latencies, 0.99) / 1e6, percentile(latencies, 1.0) / 1e6);
+        System.out.printf("Games finished: %d, errors: %d, sessions left open: %d%n",
+                finished, errors, server.getSessionCount());
+        server.stop();
+        System.exit(0);
+    }
+
+    // Plays one move in every live game of the share per round until all of them are done.
+    private static ClientResult playAll(JavaClient client, List<Game> share, int movesPerGame, Random random) throws IOException {
+        List<Game> live = new ArrayList<>(share);
+        long[] latencies = new long[share.size() * movesPerGame];
+        int requests = 0;
+        int errors = 0;
+        int finished = 0;
+        while (!live.isEmpty()) {
+            List<Game> next = new ArrayList<>();
+            for (Game game : live) {
+                int[] move = randomMoveNearStones(game.board, random);
+                game.board.place(move[0], move[1], SearchBoard.BLACK);
+                long sent = System.nanoTime();
+                String response = client.sendGet(String.format("play/?pid=%s&x=%d&y=%d", game.pid, move[0], move[1]));
+                latencies[requests++] = System.nanoTime() - sent;
+                if (response == null) {
+                    errors++;
+                    continue;
+                }
+                JSONObject json = new JSONObject(response);
+                if (!json.getBoolean("response")) {
+                    errors++;
+                    continue;
+                }
+                if (!json.has("move")) {
+                    finished++;
+                    continue;
+                }
+                JSONObject reply = json.getJSONObject("move");
+                game.board.place(reply.getInt("x"), reply.getInt("y"), SearchBoard.WHITE);
+                if (reply.getBoolean("isWin") || reply.getBoolean("isDraw")) {
+                    finished++;
+                } else if (++game.moves < movesPerGame) {
+                    next.add(game);
+                }
+            }
+            live = next;
+        }
+        return new ClientResult(Arrays.copyOf(latencies, requests), requests, errors, finished);
+    }
+
+    // Picks a random empty cell next to a stone, or the center of an empty board.
+    private static int[] randomMoveNearStones(SearchBoard board, Random random) {
+        int size = board.size();
+        if (board.stoneCount() == 0) {
+            return new int[]{size / 2, size / 2};
+        }
+        while (true) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if (board.isEmpty(x, y) && hasNeighbor(board, x, y)) {
+                return new int[]{x, y};
+            }
+        }
+    }
+
+    private static boolean hasNeighbor(SearchBoard board, int x, int y) {
+        for (int i = Math.max(0, x - 1); i <= Math.min(board.size() - 1, x + 1); i++) {
+            for (int j = Math.max(0, y - 1); j <= Math.min(board.size() - 1, y + 1); j++) {
+                if (!board.isEmpty(i, j)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,246 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * An opening book: for positions early in the game, the moves worth playing, each with a weight
+ * saying how well it did. The book is a compact binary file that is memory-mapped rather than
+ * read, so opening even a large book takes no time, only the pages a lookup touches are read,
+ * and every player and thread shares the same copy.
+ * <p>
+ * Positions are keyed by their canonical hash: the smallest of their Zobrist hashes under the
+ * eight symmetries of the board, with {@code SearchBoard.SIDE_KEY} mixed in when white is to
+ * move. Positions that are rotations or reflections of each other share an entry, and moves are
+ * stored as they are on the canonical position.
+ * <p>
+ * The file starts with five big-endian ints: the magic number, the format version, the board
+ * size, the most stones a book position has, and the number of entries. The entries follow,
+ * sorted by key, 16 bytes each: the key (long), the move as {@code x * size + y} (int) and its
+ * weight (int). A position with several moves has one entry per move. Lookups binary search the
+ * keys. {@code OpeningBookBuilder} writes books; every new {@code ComputerPlayer} uses the one
+ * named by the system property {@code omok.book}, if it is set.
+ */
+public class OpeningBook {
+    private static final int MAGIC = 0x4F4D424B;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int ENTRY_BYTES = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int boardSize;
+    private final int maxStones;
+    private final int entryCount;
+
+    // The book named by omok.book, opened the first time it is asked for.
+    private static final class DefaultBook {
+        static final OpeningBook INSTANCE = openDefault();
+    }
+
+    private OpeningBook(MappedByteBuffer buffer, Path file) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an opening book: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported opening book version " + buffer.getInt(4) + ": " + file);
+        }
+        this.buffer = buffer;
+        this.boardSize = buffer.getInt(8);
+        this.maxStones = buffer.getInt(12);
+        this.entryCount = buffer.getInt(16);
+        if (buffer.capacity() != HEADER_BYTES + (long) entryCount * ENTRY_BYTES) {
+            throw new IOException("Truncated opening book: " + file);
+        }
+    }
+
+    /**
+     * Opens a book file by mapping it into memory. The file is not read until it is probed.
+     *
+     * @param file the book file.
+     * @return the book.
+     * @throws IOException if the file cannot be mapped or is not a book.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file);
+        }
+    }
+
+    /**
+     * Returns the book named by the system property {@code omok.book}, or null if the property
+     * is not set or the book cannot be opened.
+     */
+    public static OpeningBook getDefault() {
+        return DefaultBook.INSTANCE;
+    }
+
+    private static OpeningBook openDefault() {
+        String file = System.getProperty("omok.book");
+        if (file == null) {
+            return null;
+        }
+        try {
+            return open(Paths.get(file));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Looks up a position and picks one of its book moves, each with a chance in proportion to
+     * its weight, or the heaviest one if no random generator is given. Positions with more
+     * stones than any book position, or on a board of another size, are not looked up.
+     *
+     * @param board  the position.
+     * @param color  the color to move.
+     * @param random the random generator that picks the move, or null for the heaviest move.
+     * @return the coordinates [x, y] of the book move, or null if the position is not in the book.
+     */
+    public int[] probe(SearchBoard board, int color, Random random) {
+        if (board.size() != boardSize || board.stoneCount() > maxStones) {
+            return null;
+        }
+        int symmetry = canonicalSymmetry(board, color);
+        long key = keyOf(board, color, symmetry);
+        int first = firstEntry(key);
+        int end = first;
+        long totalWeight = 0;
+        while (end < entryCount && keyAt(end) == key) {
+            totalWeight += weightAt(end);
+            end++;
+        }
+        if (first == end || totalWeight == 0) {
+            return null;
+        }
+
+        int chosen = first;
+        if (random == null) {
+            for (int e = first + 1; e < end; e++) {
+                if (weightAt(e) > weightAt(chosen)) {
+                    chosen = e;
+                }
+            }
+        } else {
+            long pick = random.nextLong(totalWeight);
+            while (pick >= weightAt(chosen)) {
+                pick -= weightAt(chosen);
+                chosen++;
+            }
+        }
+        int move = moveAt(chosen);
+        int cell = SearchBoard.inverseTransform(symmetry, move / boardSize, move % boardSize, boardSize);
+        int x = cell / boardSize;
+        int y = cell % boardSize;
+        // A hash collision could name a taken position; such a move is not played.
+        return board.isEmpty(x, y) ? new int[]{x, y} : null;
+    }
+
+    /**
+     * Returns the symmetry that turns a position into its canonical form: the one giving the
+     * smallest key.
+     *
+     * @param board the position.
+     * @param color the color to move.
+     * @return the symmetry, 0 to {@code SearchBoard.SYMMETRIES - 1}.
+     */
+    static int canonicalSymmetry(SearchBoard board, int color) {
+        int best = 0;
+        long bestKey = keyOf(board, color, 0);
+        for (int symmetry = 1; symmetry < SearchBoard.SYMMETRIES; symmetry++) {
+            long key = keyOf(board, color, symmetry);
+            if (key < bestKey) {
+                best = symmetry;
+                bestKey = key;
+            }
+        }
+        return best;
+    }
+
+    // Returns the key of a position after the given symmetry, with the side to move mixed in.
+    static long keyOf(SearchBoard board, int color, int symmetry) {
+        long hash = board.symmetricHash(symmetry);
+        return color == SearchBoard.WHITE ? hash ^ SearchBoard.SIDE_KEY : hash;
+    }
+
+    // Returns the index of the first entry whose key is not less than the given key.
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int entry) {
+        return buffer.getLong(HEADER_BYTES + entry * ENTRY_BYTES);
+    }
+
+    private int moveAt(int entry) {
+        return buffer.getInt(HEADER_BYTES + entry * ENTRY_BYTES + 8);
+    }
+
+    private int weightAt(int entry) {
+        return buffer.getInt(HEADER_BYTES + entry * ENTRY_BYTES + 12);
+    }
+
+    /**
+     * Writes a book file.
+     *
+     * @param file      the file to write.
+     * @param boardSize the size of the board the positions are on.
+     * @param maxStones the most stones any of the positions has.
+     * @param positions per canonical key, the weight of each move on the canonical position.
+     * @throws IOException if the file cannot be written.
+     */
+    static void write(Path file, int boardSize, int maxStones, Map<Long, Map<Integer, Integer>> positions)
+            throws IOException {
+        long[] keys = positions.keySet().stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(keys);
+        int entries = 0;
+        for (Map<Integer, Integer> moves : positions.values()) {
+            entries += moves.size();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(boardSize);
+            out.writeInt(maxStones);
+            out.writeInt(entries);
+            for (long key : keys) {
+                for (Map.Entry<Integer, Integer> move : positions.get(key).entrySet()) {
+                    out.writeLong(key);
+                    out.writeInt(move.getKey());
+                    out.writeInt(move.getValue());
+                }
+            }
+        }
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public int getMaxStones() {
+        return maxStones;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds an {@code OpeningBook} from self-play games, game records, or both. Every move played in
+ * a position with fewer than the given number of stones adds to its weight in that position:
+ * three if the side that played it went on to win, two for a draw or an unfinished game, and one
+ * for a loss. Moves whose weight stays below the minimum are left out of the book.
+ * <p>
+ * Self-play games start with one black stone placed at random near the center, different for
+ * every game, and are then played by two engines with the given depth and time budget, one game
+ * per core. Game records use the format of the benchmark fixtures: one game per line, a name and
+ * then the moves as {@code x,y}, black first; lines starting with {@code #} are comments.
+ * Usage: java OpeningBookBuilder [--games N] [--depth n] [--budget millis] [--plies n]
+ *                                [--min-weight n] [--records file]... --out file
+ */
+public class OpeningBookBuilder {
+    // Transposition table of each self-play engine; small, since many games run at once.
+    private static final long ENGINE_TT_BYTES = 4L * 1024 * 1024;
+    // The first black stone of a self-play game is this far from the center at most.
+    private static final int OPENING_RADIUS = 2;
+
+    private final int boardSize;
+    private final int plies;
+    // Per canonical key, the weight of each move on the canonical position.
+    private final Map<Long, Map<Integer, Integer>> positions = new HashMap<>();
+    private int games = 0;
+
+    private OpeningBookBuilder(int boardSize, int plies) {
+        this.boardSize = boardSize;
+        this.plies = plies;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 200;
+        int depth = 3;
+        long budget = 200;
+        int plies = 8;
+        int minWeight = 2;
+        List<String> records = new ArrayList<>();
+        String out = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--budget" -> budget = Long.parseLong(args[++i]);
+                case "--plies" -> plies = Integer.parseInt(args[++i]);
+                case "--min-weight" -> minWeight = Integer.parseInt(args[++i]);
+                case "--records" -> records.add(args[++i]);
+                case "--out" -> out = args[++i];
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (out == null) {
+            System.err.println("Usage: java OpeningBookBuilder [--games N] [--depth n] [--budget millis] [--plies n]"
+                    + " [--min-weight n] [--records file]... --out file");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        OpeningBookBuilder builder = new OpeningBookBuilder(ActualBoard.BOARD_SIZE, plies);
+        for (String file : records) {
+            builder.addRecords(Paths.get(file));
+        }
+        builder.addSelfPlay(games, depth, budget);
+        int dropped = builder.dropLightMoves(minWeight);
+        Path file = Paths.get(out);
+        OpeningBook.write(file, builder.boardSize, plies - 1, builder.positions);
+
+        OpeningBook book = OpeningBook.open(file);
+        System.out.printf("%d games, %d positions, %d book moves (%d below weight %d left out), %d bytes, %.1f s%n",
+                builder.games, builder.positions.size(), book.getEntryCount(), dropped, minWeight,
+                Files.size(file), (System.nanoTime() - start) / 1e9);
+        System.exit(0);
+    }
+
+    // Adds every game of a record file.
+    private void addRecords(Path file) throws IOException {
+        for (String line : Files.readAllLines(file)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            int[] moves = new int[fields.length - 1];
+            for (int m = 1; m < fields.length; m++) {
+                String[] xy = fields[m].split(",");
+                moves[m - 1] = Integer.parseInt(xy[0]) * boardSize + Integer.parseInt(xy[1]);
+            }
+            addGame(moves);
+        }
+    }
+
+    // Plays self-play games in parallel and adds each one.
+    private void addSelfPlay(int count, int depth, long budget) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Future<int[]>> results = new ArrayList<>();
+        for (int g = 0; g < count; g++) {
+            long seed = g;
+            results.add(pool.submit(() -> playGame(depth, budget, new Random(seed))));
+        }
+        for (Future<int[]> result : results) {
+            addGame(result.get());
+        }
+        pool.shutdown();
+    }
+
+    // Plays one game far enough to cover the book and returns its moves, encoded as x * size + y.
+    private int[] playGame(int depth, long budget, Random random) {
+        SearchBoard board = new SearchBoard(boardSize);
+        ComputerPlayer[] engines = new ComputerPlayer[2];
+        for (int color = 0; color < 2; color++) {
+            engines[color] = new ComputerPlayer(color == SearchBoard.BLACK ? Stone.BLACK : Stone.WHITE, null, null,
+                    ENGINE_TT_BYTES);
+            engines[color].setMaxDepth(depth);
+            engines[color].setTimeBudget(budget);
+            engines[color].setOpeningBook(null);
+        }
+        List<Integer> moves = new ArrayList<>();
+        int center = boardSize / 2;
+        int x = center - OPENING_RADIUS + random.nextInt(2 * OPENING_RADIUS + 1);
+        int y = center - OPENING_RADIUS + random.nextInt(2 * OPENING_RADIUS + 1);
+        int color = SearchBoard.BLACK;
+        while (true) {
+            board.place(x, y, color);
+            moves.add(x * boardSize + y);
+            color = 1 - color;
+            if (board.winner() != SearchBoard.EMPTY || board.isFull()) {
+                break;
+            }
+            int[] move = engines[color].bestMove(board);
+            x = move[0];
+            y = move[1];
+        }
+        return moves.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Replays a game and counts each of its moves that was played in a position with fewer than
+     * {@code plies} stones, by the result for the side that played it.
+     *
+     * @param moves the moves of the game, black first, encoded as {@code x * size + y}.
+     */
+    private void addGame(int[] moves) {
+        SearchBoard board = new SearchBoard(boardSize);
+        for (int move : moves) {
+            board.place(move / boardSize, move % boardSize, board.stoneCount() % 2);
+            if (board.winner() != SearchBoard.EMPTY) {
+                break;
+            }
+        }
+        int winner = board.winner();
+        games++;
+
+        board = new SearchBoard(boardSize);
+        for (int m = 0; m < moves.length && m < plies; m++) {
+            int color = m % 2;
+            int x = moves[m] / boardSize;
+            int y = moves[m] % boardSize;
+            int weight = winner == SearchBoard.EMPTY ? 2 : winner == color ? 3 : 1;
+            int symmetry = OpeningBook.canonicalSymmetry(board, color);
+            long key = OpeningBook.keyOf(board, color, symmetry);
+            positions.computeIfAbsent(key, k -> new HashMap<>())
+                    .merge(SearchBoard.transform(symmetry, x, y, boardSize), weight, Integer::sum);
+            board.place(x, y, color);
+        }
+    }
+
+    // Removes the moves lighter than the minimum weight, and positions left with no moves.
+    private int dropLightMoves(int minWeight) {
+        int dropped = 0;
+        for (Iterator<Map<Integer, Integer>> it = positions.values().iterator(); it.hasNext(); ) {
+            Map<Integer, Integer> moves = it.next();
+            int before = moves.size();
+            moves.values().removeIf(weight -> weight < minWeight);
+            dropped += before - moves.size();
+            if (moves.isEmpty()) {
+                it.remove();
+            }
+        }
+        return dropped;
+    }
+}
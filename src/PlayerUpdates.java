@@ -120,6 +120,15 @@ class PlayerUpdates extends JPanel {
         timer.stop();
     }
 
+    /**
+     * Displays the progress of a computer player's search
+     */
+    public void showProgress(int depth, long nodes) {
+        String progressText = String.format("<html>Thinking...<br/>\nDepth %d<br/>\n%,d nodes</html>", depth, nodes);
+        statusLabel.setText(progressText);
+        timer.stop();
+    }
+
     /**
      * Updates the displayed name
      */
@@ -0,0 +1,164 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Checks the hand-offs between the game's thread and the search thread that OmokGameDesign
+ * relies on, with one search thread as in the game. Every round checks that:
+ * <ul>
+ *   <li>taking moves back while the AI ponders, which stops and cancels the ponder search and
+ *       announces a new one at once, leaves the new one pondering, and a later stop still
+ *       stops it;</li>
+ *   <li>a search cancelled after it was handed to the search thread, but before it started,
+ *       returns null at once instead of using its whole time budget;</li>
+ *   <li>a search announced after that cancel runs normally.</li>
+ * </ul>
+ * The last two are checked for the tree search player too.
+ * Exits with status 1 if any check fails.
+ * Usage: java PonderCheck [rounds]
+ */
+public class PonderCheck {
+    // Time budget of the ordinary searches; a cancelled search must return well before it.
+    private static final long BUDGET_MILLIS = 2000;
+    // How long a step may take before its check fails.
+    private static final long WAIT_MILLIS = 1000;
+    // What result returns for a search that did not finish in time.
+    private static final int[] TIMED_OUT = new int[0];
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        ExecutorService searchThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PonderCheck search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<String> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int round = 1; round <= rounds; round++) {
+            checkRound(round, searchThread, failures);
+        }
+        searchThread.shutdownNow();
+        for (String failure : failures) {
+            System.out.println(failure);
+        }
+        System.out.printf("%d rounds in %.0f ms: %d checks failed%n",
+                rounds, (System.nanoTime() - start) / 1e6, failures.size());
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    private static void checkRound(int round, ExecutorService searchThread, List<String> failures) throws Exception {
+        ComputerPlayer computer = new ComputerPlayer(Stone.WHITE, null, null, 1 << 20);
+        computer.setOpeningBook(null);
+        computer.setTimeBudget(BUDGET_MILLIS);
+        SearchBoard position = openingPosition();
+
+        // Taking moves back while pondering: cancelAiMove, then startPonder.
+        Future<int[]> first = ponder(computer, searchThread, position);
+        check(failures, round, waitUntil(computer::isPondering), "first ponder search did not start pondering");
+        computer.stopPondering();
+        computer.cancel();
+        Future<int[]> second = ponder(computer, searchThread, position);
+        check(failures, round, result(computer, first, WAIT_MILLIS) == null,
+                "stopped ponder search returned a move");
+        check(failures, round, waitUntil(computer::isPondering),
+                "ponder search announced while the stopped one finished is not pondering");
+        computer.stopPondering();
+        check(failures, round, result(computer, second, WAIT_MILLIS) == null,
+                "second ponder search was not stopped");
+
+        checkCancelBeforeStart(round, searchThread, failures, computer, computer::setTimeBudget, position);
+
+        MctsPlayer mcts = new MctsPlayer(Stone.WHITE);
+        mcts.setThreads(1);
+        checkCancelBeforeStart(round, searchThread, failures, mcts, mcts::setTimeBudget, position);
+    }
+
+    // Cancels a search that is queued behind other work on the search thread, then checks that
+    // it returns null at once and that a search announced after the cancel finds a move.
+    private static void checkCancelBeforeStart(int round, ExecutorService searchThread, List<String> failures,
+                                               Engine engine, LongConsumer timeBudget, SearchBoard position)
+            throws Exception {
+        String name = engine.getClass().getSimpleName();
+        timeBudget.accept(BUDGET_MILLIS);
+        CountDownLatch busy = new CountDownLatch(1);
+        searchThread.submit(() -> {
+            busy.await();
+            return null;
+        });
+        long search = engine.beginSearch();
+        SearchBoard snapshot = new SearchBoard(position);
+        Future<int[]> queued = searchThread.submit(() -> engine.bestMove(snapshot, search));
+        engine.cancel();
+        busy.countDown();
+        long cancelStart = System.nanoTime();
+        check(failures, round, result(engine, queued, BUDGET_MILLIS * 2) == null,
+                name + ": search cancelled before it started returned a move");
+        check(failures, round, (System.nanoTime() - cancelStart) / 1_000_000 < WAIT_MILLIS,
+                name + ": search cancelled before it started did not return at once");
+
+        // A search announced after the cancel is not affected by it.
+        long next = engine.beginSearch();
+        SearchBoard nextSnapshot = new SearchBoard(position);
+        timeBudget.accept(50);
+        int[] move = result(engine, searchThread.submit(() -> engine.bestMove(nextSnapshot, next)),
+                BUDGET_MILLIS * 2);
+        check(failures, round, move != null && move.length == 2 && position.isEmpty(move[0], move[1]),
+                name + ": search announced after a cancel did not find a move");
+    }
+
+    // Announces a ponder search on the reply predicted in the position, as startPonder does,
+    // and hands it to the search thread.
+    private static Future<int[]> ponder(ComputerPlayer computer, ExecutorService searchThread, SearchBoard position) {
+        SearchBoard snapshot = new SearchBoard(position);
+        int[] reply = computer.predictReply(snapshot);
+        long search = computer.beginPonder();
+        return searchThread.submit(() -> computer.ponder(snapshot, reply, search));
+    }
+
+    // A position after the AI's move, with black, the human, to play.
+    private static SearchBoard openingPosition() {
+        SearchBoard board = new SearchBoard(ActualBoard.BOARD_SIZE);
+        board.place(7, 7, SearchBoard.BLACK);
+        board.place(7, 8, SearchBoard.WHITE);
+        board.place(8, 8, SearchBoard.BLACK);
+        board.place(6, 6, SearchBoard.WHITE);
+        return board;
+    }
+
+    // Waits for a search to finish and returns its move. A search that does not finish in time
+    // is cancelled, so that the next round does not queue behind it, and gives TIMED_OUT.
+    private static int[] result(Engine engine, Future<int[]> search, long millis) throws Exception {
+        try {
+            return search.get(millis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            engine.cancel();
+            search.get();
+            return TIMED_OUT;
+        }
+    }
+
+    // Waits until the condition holds, for WAIT_MILLIS at most, and returns whether it did.
+    private static boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + WAIT_MILLIS * 1_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private static void check(List<String> failures, int round, boolean ok, String message) {
+        if (!ok) {
+            failures.add("round " + round + ": " + message);
+        }
+    }
+}
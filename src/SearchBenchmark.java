@@ -0,0 +1,66 @@
+/**
+ * Measures how much faster {@code ComputerPlayer.bestMove} gets with more search threads.
+ * Each run searches the same positions to a fixed depth with a fresh transposition table,
+ * and the time is compared with the single-threaded run.
+ * Usage: java SearchBenchmark [depth] [threads...]
+ */
+public class SearchBenchmark {
+    // Test positions as move lists {x, y}, alternating black and white, black first.
+    private static final int[][][] POSITIONS = {
+            {{7, 7}, {8, 8}, {6, 6}},
+            {{7, 7}, {7, 8}, {8, 7}, {6, 7}, {8, 9}, {9, 8}},
+            {{7, 7}, {8, 8}, {8, 6}, {6, 8}, {9, 5}, {10, 4}, {7, 5}, {6, 4}, {8, 5}, {8, 4}},
+    };
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int[] threadCounts = {1, 2, 4, 8, 16};
+        if (args.length > 1) {
+            threadCounts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                threadCounts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.println("Depth: " + depth);
+
+        // Warm up the JIT so the first measured run is not penalized.
+        runAll(depth, 1);
+
+        long baseline = 0;
+        System.out.printf("%8s %10s %12s %12s %8s%n", "threads", "ms", "nodes", "nodes/s", "speedup");
+        for (int threads : threadCounts) {
+            long start = System.nanoTime();
+            long nodes = runAll(depth, threads);
+            long elapsed = System.nanoTime() - start;
+            if (baseline == 0) {
+                baseline = elapsed;
+            }
+            System.out.printf("%8d %10.1f %12d %12.0f %8.2f%n", threads, elapsed / 1e6, nodes,
+                    nodes / (elapsed / 1e9), (double) baseline / elapsed);
+        }
+        System.exit(0);
+    }
+
+    // Searches every test position once and returns the total number of nodes searched.
+    private static long runAll(int depth, int threads) {
+        long nodes = 0;
+        for (int[][] position : POSITIONS) {
+            ActualBoard board = new ActualBoard();
+            PlayerInterface black = new HumanPlayer(Stone.BLACK, "Black");
+            PlayerInterface white = new HumanPlayer(Stone.WHITE, "White");
+            for (int m = 0; m < position.length; m++) {
+                board.placeStone(position[m][0], position[m][1], m % 2 == 0 ? black : white);
+            }
+            PlayerInterface opponent = position.length % 2 == 0 ? white : black;
+            Stone toMove = position.length % 2 == 0 ? Stone.BLACK : Stone.WHITE;
+            ComputerPlayer computer = new ComputerPlayer(toMove, board, opponent);
+            computer.setThreads(threads);
+            computer.setMaxDepth(depth);
+            computer.setTimeBudget(Long.MAX_VALUE);
+            computer.bestMove();
+            nodes += computer.getNodesSearched();
+        }
+        return nodes;
+    }
+}
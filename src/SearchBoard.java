@@ -0,0 +1,574 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A compact board used by the computer player while it searches. Instead of an array of
+ * {@code PlayerInterface} references, every color keeps one packed {@code long} bitboard per
+ * line of the board (rows, columns and both diagonals), so placing, removing and testing a
+ * stone are a few bit operations and a five in a row is found with shift-and-AND.
+ * The board also keeps a pattern score per line and color (see {@code LinePatterns}); only the
+ * four lines through a stone are rescored when it is placed or removed, so the evaluation of a
+ * whole position is always available without scanning the board.
+ * It also keeps the set of candidate moves, the empty cells within two cells of a stone, so the
+ * search never has to scan the board for moves worth trying.
+ */
+public class SearchBoard {
+    // Color indexes used by the search; EMPTY is returned for unoccupied cells.
+    public static final int EMPTY = -1;
+    public static final int BLACK = 0;
+    public static final int WHITE = 1;
+    // The longest line that still fits in a single packed long.
+    public static final int MAX_SIZE = 64;
+    // Empty cells at most this many rows and columns away from a stone are candidate moves.
+    public static final int CANDIDATE_DISTANCE = 2;
+    // Number of rotations and reflections of the board, counting the identity; see transform.
+    public static final int SYMMETRIES = 8;
+    // A game board larger than MAX_SIZE is copied through a window that keeps at least this
+    // many cells between the stones and its edges when the stones leave room; see fromBoard.
+    private static final int WINDOW_MARGIN = 8;
+    // Random keys per color and cell for Zobrist hashing, plus one for the side to move.
+    // A fixed seed keeps hashes stable between runs.
+    private static final long[][] ZOBRIST = new long[2][MAX_SIZE * MAX_SIZE];
+    public static final long SIDE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x4F6D6F6BL);
+        for (int color = 0; color < 2; color++) {
+            for (int cell = 0; cell < MAX_SIZE * MAX_SIZE; cell++) {
+                ZOBRIST[color][cell] = random.nextLong();
+            }
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private final int size;
+    // Line bitboards per color. Rows are indexed by x with bit y, columns by y with bit x,
+    // diagonals (down-right) by x - y + size - 1 with bit x and anti-diagonals by x + y with bit x.
+    // Where all lines share one array, their ids are rows first, then columns, diagonals and
+    // anti-diagonals: x, size + y, 2 * size + diagonal and 4 * size - 1 + anti-diagonal.
+    private final long[][] rows;
+    private final long[][] cols;
+    private final long[][] diags;
+    private final long[][] antiDiags;
+    // Cells of each line that lie on the board, indexed by line id.
+    private final long[] lineCells;
+    // Pattern score of every line for each color, and their sum per color.
+    private final int[][] lineScores;
+    private final int[] totalScores;
+    private int stones = 0;
+    // Zobrist hash of the stones on the board, updated on every place and remove.
+    private long hash = 0L;
+    // The color that completed five in a row, and the stone count at the moment it happened.
+    private int winner = EMPTY;
+    private int winnerAt = 0;
+    // Number of stones within CANDIDATE_DISTANCE of each cell (x * size + y), not counting the
+    // cell itself, and per row x the empty cells with at least one such stone, as bit y.
+    private final byte[] neighbors;
+    private final long[] candidates;
+    // Where cell (0, 0) of this board lies on the game board it was copied from; see fromBoard.
+    private int originX = 0;
+    private int originY = 0;
+
+    /**
+     * Creates an empty search board of the given size.
+     *
+     * @param size the number of rows and columns of the board.
+     */
+    public SearchBoard(int size) {
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        this.size = size;
+        this.rows = new long[2][size];
+        this.cols = new long[2][size];
+        this.diags = new long[2][2 * size - 1];
+        this.antiDiags = new long[2][2 * size - 1];
+        this.lineCells = new long[6 * size - 2];
+        this.lineScores = new int[2][6 * size - 2];
+        this.totalScores = new int[2];
+        this.neighbors = new byte[size * size];
+        this.candidates = new long[size];
+        long fullLine = size == 64 ? -1L : (1L << size) - 1;
+        for (int i = 0; i < size; i++) {
+            lineCells[i] = fullLine;
+            lineCells[size + i] = fullLine;
+        }
+        for (int d = 0; d < 2 * size - 1; d++) {
+            // Diagonal d holds the cells with x - y = d - (size - 1) and anti-diagonal d those with
+            // x + y = d; in both, x runs from max(0, d - (size - 1)) to min(size - 1, d).
+            long cells = cellRange(Math.max(0, d - (size - 1)), Math.min(size - 1, d));
+            lineCells[2 * size + d] = cells;
+            lineCells[4 * size - 1 + d] = cells;
+        }
+    }
+
+    // Returns a mask with bits from..to set.
+    private static long cellRange(int from, int to) {
+        long upTo = to == 63 ? -1L : (1L << (to + 1)) - 1;
+        return upTo & ~((1L << from) - 1);
+    }
+
+    /**
+     * Creates a copy of another search board, so that a separate thread can search on it.
+     *
+     * @param other the board to copy.
+     */
+    public SearchBoard(SearchBoard other) {
+        this.size = other.size;
+        this.rows = new long[][]{other.rows[BLACK].clone(), other.rows[WHITE].clone()};
+        this.cols = new long[][]{other.cols[BLACK].clone(), other.cols[WHITE].clone()};
+        this.diags = new long[][]{other.diags[BLACK].clone(), other.diags[WHITE].clone()};
+        this.antiDiags = new long[][]{other.antiDiags[BLACK].clone(), other.antiDiags[WHITE].clone()};
+        this.stones = other.stones;
+        this.hash = other.hash;
+        this.winner = other.winner;
+        this.winnerAt = other.winnerAt;
+        this.lineCells = other.lineCells;
+        this.lineScores = new int[][]{other.lineScores[BLACK].clone(), other.lineScores[WHITE].clone()};
+        this.totalScores = other.totalScores.clone();
+        this.neighbors = other.neighbors.clone();
+        this.candidates = other.candidates.clone();
+        this.originX = other.originX;
+        this.originY = other.originY;
+    }
+
+    /**
+     * Builds a search board holding the same stones as the given game board. Only the taken
+     * places of the game board are visited, so this costs time in proportion to the stones.
+     * <p>
+     * A game board larger than {@code MAX_SIZE} is copied through a window of {@code MAX_SIZE}
+     * rows and columns, centered on the stones if they fit in it with {@code WINDOW_MARGIN}
+     * cells to spare on every side, or else on the last stone placed. Stones outside the window
+     * are left out. {@code originX} and {@code originY} tell where the window lies, and must be
+     * added to the coordinates of moves found on the search board to play them on the game board.
+     *
+     * @param actualBoard the game board to copy.
+     * @return a search board with one bit set for every stone on {@code actualBoard}, or on the
+     *         window of it.
+     */
+    public static SearchBoard fromBoard(ActualBoard actualBoard) {
+        int gameSize = actualBoard.sizeBoard();
+        List<ActualBoard.Place> places = actualBoard.occupiedPlaces();
+        SearchBoard board = new SearchBoard(Math.min(gameSize, MAX_SIZE));
+        if (gameSize > MAX_SIZE) {
+            int minX = gameSize;
+            int maxX = -1;
+            int minY = gameSize;
+            int maxY = -1;
+            for (ActualBoard.Place place : places) {
+                minX = Math.min(minX, place.x);
+                maxX = Math.max(maxX, place.x);
+                minY = Math.min(minY, place.y);
+                maxY = Math.max(maxY, place.y);
+            }
+            int centerX = gameSize / 2;
+            int centerY = gameSize / 2;
+            if (maxX - minX + 2 * WINDOW_MARGIN < MAX_SIZE && maxY - minY + 2 * WINDOW_MARGIN < MAX_SIZE) {
+                if (!places.isEmpty()) {
+                    centerX = (minX + maxX) / 2;
+                    centerY = (minY + maxY) / 2;
+                }
+            } else {
+                ActualBoard.Place last = places.get(places.size() - 1);
+                centerX = last.x;
+                centerY = last.y;
+            }
+            board.originX = Math.max(0, Math.min(gameSize - MAX_SIZE, centerX - MAX_SIZE / 2));
+            board.originY = Math.max(0, Math.min(gameSize - MAX_SIZE, centerY - MAX_SIZE / 2));
+        }
+        for (ActualBoard.Place place : places) {
+            int x = place.x - board.originX;
+            int y = place.y - board.originY;
+            if (x >= 0 && x < board.size && y >= 0 && y < board.size) {
+                board.place(x, y, colorOf(actualBoard.playerAt(place.x, place.y).getStoneType()));
+            }
+        }
+        return board;
+    }
+
+    // Returns the row of the game board that row 0 of this board was copied from.
+    public int originX() {
+        return originX;
+    }
+
+    // Returns the column of the game board that column 0 of this board was copied from.
+    public int originY() {
+        return originY;
+    }
+
+    /**
+     * Maps a stone type to the color index used by the search board.
+     *
+     * @param stone the stone type.
+     * @return {@code BLACK} or {@code WHITE}, or {@code EMPTY} for {@code Stone.EMPTY} and null.
+     */
+    public static int colorOf(Stone stone) {
+        if (stone == Stone.BLACK) {
+            return BLACK;
+        }
+        if (stone == Stone.WHITE) {
+            return WHITE;
+        }
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the Zobrist hash of the current position. The side to move is not included;
+     * callers that need it XOR in {@code SIDE_KEY}.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Returns the Zobrist hash the position would have after the given rotation or reflection,
+     * so that positions that are the same up to symmetry can be recognized. It takes time in
+     * proportion to the number of stones.
+     *
+     * @param symmetry the symmetry, 0 to {@code SYMMETRIES - 1}; 0 gives {@code hash()}.
+     * @return the hash of the transformed position.
+     */
+    public long symmetricHash(int symmetry) {
+        long result = 0L;
+        for (int color = 0; color < 2; color++) {
+            for (int x = 0; x < size; x++) {
+                for (long bits = rows[color][x]; bits != 0; bits &= bits - 1) {
+                    int cell = transform(symmetry, x, Long.numberOfTrailingZeros(bits), size);
+                    result ^= ZOBRIST[color][cell / size * MAX_SIZE + cell % size];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Maps a position of a board to its image under one of the board's symmetries. Bit 0 of the
+     * symmetry swaps x and y, then bit 1 mirrors x and bit 2 mirrors y.
+     *
+     * @param symmetry the symmetry, 0 to {@code SYMMETRIES - 1}.
+     * @param x        the x-coordinate of the position.
+     * @param y        the y-coordinate of the position.
+     * @param size     the number of rows and columns of the board.
+     * @return the image of the position, encoded as {@code x * size + y}.
+     */
+    public static int transform(int symmetry, int x, int y, int size) {
+        if ((symmetry & 1) != 0) {
+            int swap = x;
+            x = y;
+            y = swap;
+        }
+        if ((symmetry & 2) != 0) {
+            x = size - 1 - x;
+        }
+        if ((symmetry & 4) != 0) {
+            y = size - 1 - y;
+        }
+        return x * size + y;
+    }
+
+    /**
+     * Undoes {@code transform}: maps the image of a position back to the position.
+     *
+     * @param symmetry the symmetry the image was made with.
+     * @param x        the x-coordinate of the image.
+     * @param y        the y-coordinate of the image.
+     * @param size     the number of rows and columns of the board.
+     * @return the original position, encoded as {@code x * size + y}.
+     */
+    public static int inverseTransform(int symmetry, int x, int y, int size) {
+        if ((symmetry & 4) != 0) {
+            y = size - 1 - y;
+        }
+        if ((symmetry & 2) != 0) {
+            x = size - 1 - x;
+        }
+        if ((symmetry & 1) != 0) {
+            int swap = x;
+            x = y;
+            y = swap;
+        }
+        return x * size + y;
+    }
+
+    public int stoneCount() {
+        return stones;
+    }
+
+    public boolean isFull() {
+        return stones == size * size;
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return ((rows[BLACK][x] | rows[WHITE][x]) & (1L << y)) == 0;
+    }
+
+    public boolean hasStone(int x, int y, int color) {
+        return (rows[color][x] & (1L << y)) != 0;
+    }
+
+    /**
+     * Returns the color of the stone at the given position.
+     *
+     * @param x the x-coordinate of the position.
+     * @param y the y-coordinate of the position.
+     * @return {@code BLACK}, {@code WHITE} or {@code EMPTY}.
+     */
+    public int colorAt(int x, int y) {
+        long bit = 1L << y;
+        if ((rows[BLACK][x] & bit) != 0) {
+            return BLACK;
+        }
+        if ((rows[WHITE][x] & bit) != 0) {
+            return WHITE;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Places a stone of the given color on an empty position. If the stone completes five in
+     * a row and nobody has won yet, the color is recorded as the winner.
+     *
+     * @param x     the x-coordinate of the position.
+     * @param y     the y-coordinate of the position.
+     * @param color the color of the stone, {@code BLACK} or {@code WHITE}.
+     */
+    public void place(int x, int y, int color) {
+        rows[color][x] |= 1L << y;
+        cols[color][y] |= 1L << x;
+        diags[color][x - y + size - 1] |= 1L << x;
+        antiDiags[color][x + y] |= 1L << x;
+        hash ^= ZOBRIST[color][x * MAX_SIZE + y];
+        stones++;
+        rescoreLinesThrough(x, y);
+        updateNeighbors(x, y, 1);
+        candidates[x] &= ~(1L << y);
+        if (winner == EMPTY && isFiveThrough(x, y, color)) {
+            winner = color;
+            winnerAt = stones;
+        }
+    }
+
+    /**
+     * Removes the stone of the given color from a position, undoing a previous {@code place}.
+     * Moves must be undone in the reverse order they were made.
+     *
+     * @param x     the x-coordinate of the position.
+     * @param y     the y-coordinate of the position.
+     * @param color the color of the stone being removed.
+     */
+    public void remove(int x, int y, int color) {
+        if (winner != EMPTY && winnerAt == stones) {
+            winner = EMPTY;
+        }
+        rows[color][x] &= ~(1L << y);
+        cols[color][y] &= ~(1L << x);
+        diags[color][x - y + size - 1] &= ~(1L << x);
+        antiDiags[color][x + y] &= ~(1L << x);
+        hash ^= ZOBRIST[color][x * MAX_SIZE + y];
+        stones--;
+        rescoreLinesThrough(x, y);
+        updateNeighbors(x, y, -1);
+        if (neighbors[x * size + y] > 0) {
+            candidates[x] |= 1L << y;
+        }
+    }
+
+    /**
+     * Adds delta to the neighbor count of every cell near (x, y), where a stone was just placed
+     * (delta 1) or removed (delta -1), and adds or drops those cells as candidate moves. This
+     * touches at most 24 cells whatever the board size.
+     */
+    private void updateNeighbors(int x, int y, int delta) {
+        int toX = Math.min(size - 1, x + CANDIDATE_DISTANCE);
+        int fromY = Math.max(0, y - CANDIDATE_DISTANCE);
+        int toY = Math.min(size - 1, y + CANDIDATE_DISTANCE);
+        for (int i = Math.max(0, x - CANDIDATE_DISTANCE); i <= toX; i++) {
+            long occupied = rows[BLACK][i] | rows[WHITE][i];
+            for (int j = fromY; j <= toY; j++) {
+                if (i == x && j == y) {
+                    continue;
+                }
+                int count = neighbors[i * size + j] += delta;
+                if (count == 0) {
+                    candidates[i] &= ~(1L << j);
+                } else if ((occupied & (1L << j)) == 0) {
+                    candidates[i] |= 1L << j;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the candidate moves: the empty cells within {@code CANDIDATE_DISTANCE} rows and
+     * columns of a stone. An empty board has none.
+     *
+     * @param moves receives the moves, encoded as {@code x * size + y}; it must have room for
+     *              {@code candidateCount()} moves.
+     * @return the number of moves written.
+     */
+    public int candidateMoves(int[] moves) {
+        int count = 0;
+        for (int x = 0; x < size; x++) {
+            for (long bits = candidates[x]; bits != 0; bits &= bits - 1) {
+                moves[count++] = x * size + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return count;
+    }
+
+    public int candidateCount() {
+        int count = 0;
+        for (long row : candidates) {
+            count += Long.bitCount(row);
+        }
+        return count;
+    }
+
+    public boolean isCandidate(int x, int y) {
+        return (candidates[x] & (1L << y)) != 0;
+    }
+
+    /**
+     * Returns the sum of the pattern scores of all lines for the given color. This is kept up
+     * to date by {@code place} and {@code remove}, so reading it costs nothing.
+     *
+     * @param color {@code BLACK} or {@code WHITE}.
+     * @return the pattern score of the color's stones on the whole board.
+     */
+    public int score(int color) {
+        return totalScores[color];
+    }
+
+    // Recomputes the pattern scores of the row, column and both diagonals through (x, y) for both colors.
+    private void rescoreLinesThrough(int x, int y) {
+        int diag = x - y + size - 1;
+        int antiDiag = x + y;
+        for (int color = BLACK; color <= WHITE; color++) {
+            int other = 1 - color;
+            rescoreLine(color, x, rows[color][x], rows[other][x]);
+            rescoreLine(color, size + y, cols[color][y], cols[other][y]);
+            rescoreLine(color, 2 * size + diag, diags[color][diag], diags[other][diag]);
+            rescoreLine(color, 4 * size - 1 + antiDiag, antiDiags[color][antiDiag], antiDiags[other][antiDiag]);
+        }
+    }
+
+    private void rescoreLine(int color, int lineId, long mine, long theirs) {
+        int score = LinePatterns.score(mine, theirs | ~lineCells[lineId]);
+        totalScores[color] += score - lineScores[color][lineId];
+        lineScores[color][lineId] = score;
+    }
+
+    /**
+     * Scores how strong a stone of the given color would be on the empty position (x, y): the
+     * sum, over the four lines through it, of the score of the threat class it would make there.
+     *
+     * @param x     the x-coordinate of the empty position.
+     * @param y     the y-coordinate of the empty position.
+     * @param color the color of the stone.
+     * @return the threat score of the position for {@code color}.
+     */
+    public int threatScore(int x, int y, int color) {
+        int score = 0;
+        for (int line = 0; line < 4; line++) {
+            score += LinePatterns.scoreOf(threatOnLine(line, x, y, color));
+        }
+        return score;
+    }
+
+    /**
+     * Returns the threat classes a stone of the given color would make on the empty position
+     * (x, y) along each of the four lines through it, packed four bits per line: the row in
+     * bits 0-3, the column in bits 4-7, the diagonal in bits 8-11 and the anti-diagonal in
+     * bits 12-15. Searches that need several facts about a position, such as whether it makes
+     * a five or a four, can then read them all from one call.
+     *
+     * @param x     the x-coordinate of the empty position.
+     * @param y     the y-coordinate of the empty position.
+     * @param color the color of the stone.
+     * @return the packed threat classes, each one of the {@code LinePatterns} classes.
+     */
+    public int threatClasses(int x, int y, int color) {
+        return threatOnLine(0, x, y, color)
+                | threatOnLine(1, x, y, color) << 4
+                | threatOnLine(2, x, y, color) << 8
+                | threatOnLine(3, x, y, color) << 12;
+    }
+
+    // Returns the threat class a stone of the given color would make on (x, y) along one line:
+    // 0 the row, 1 the column, 2 the diagonal and 3 the anti-diagonal.
+    private int threatOnLine(int line, int x, int y, int color) {
+        int other = 1 - color;
+        return switch (line) {
+            case 0 -> LinePatterns.threatAt(rows[color][x], rows[other][x] | ~lineCells[x], y);
+            case 1 -> LinePatterns.threatAt(cols[color][y], cols[other][y] | ~lineCells[size + y], x);
+            case 2 -> LinePatterns.threatAt(diags[color][x - y + size - 1],
+                    diags[other][x - y + size - 1] | ~lineCells[3 * size - 1 + x - y], x);
+            default -> LinePatterns.threatAt(antiDiags[color][x + y],
+                    antiDiags[other][x + y] | ~lineCells[4 * size - 1 + x + y], x);
+        };
+    }
+
+    /**
+     * Returns the color that has five in a row on this board, or {@code EMPTY} if neither has.
+     */
+    public int winner() {
+        return winner;
+    }
+
+    public boolean isWonBy(int color) {
+        return winner == color;
+    }
+
+    /**
+     * Checks whether the four lines through (x, y) contain five consecutive stones of the given color.
+     *
+     * @param x     the x-coordinate of the position.
+     * @param y     the y-coordinate of the position.
+     * @param color the color to check.
+     * @return true if any of the lines through (x, y) holds five in a row for {@code color}.
+     */
+    public boolean isFiveThrough(int x, int y, int color) {
+        return hasFive(rows[color][x])
+                || hasFive(cols[color][y])
+                || hasFive(diags[color][x - y + size - 1])
+                || hasFive(antiDiags[color][x + y]);
+    }
+
+    /**
+     * Checks whether placing a stone of the given color on the empty position (x, y) would
+     * make five in a row in the direction (dx, dy), without modifying the board.
+     *
+     * @param x     the x-coordinate of the position.
+     * @param y     the y-coordinate of the position.
+     * @param dx    the x-direction component of the line.
+     * @param dy    the y-direction component of the line.
+     * @param color the color of the stone.
+     * @return true if the stone would complete five in a row along that line.
+     */
+    public boolean wouldMakeFive(int x, int y, int dx, int dy, int color) {
+        return hasFive(lineWith(x, y, dx, dy, color));
+    }
+
+    // Returns the line bitboard of the given color through (x, y) in direction (dx, dy), with (x, y) set.
+    private long lineWith(int x, int y, int dx, int dy, int color) {
+        if (dx == 0) {
+            return rows[color][x] | (1L << y);
+        }
+        if (dy == 0) {
+            return cols[color][y] | (1L << x);
+        }
+        if (dx == dy) {
+            return diags[color][x - y + size - 1] | (1L << x);
+        }
+        return antiDiags[color][x + y] | (1L << x);
+    }
+
+    // Five consecutive set bits survive four shift-and-AND steps.
+    private static boolean hasFive(long line) {
+        return (line & (line >>> 1) & (line >>> 2) & (line >>> 3) & (line >>> 4)) != 0;
+    }
+}
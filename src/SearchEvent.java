@@ -0,0 +1,42 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recorded for every call to {@code ComputerPlayer.bestMove}. Its duration is the time
+ * the move took; the fields say how the search went.
+ */
+@Name("omok.Search")
+@Label("Search")
+@Category({"Omok", "Engine"})
+@Description("One call to ComputerPlayer.bestMove")
+public class SearchEvent extends Event {
+    @Label("Depth Reached")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Cutoffs")
+    @Description("Alpha-beta cutoffs")
+    long cutoffs;
+
+    @Label("First Move Cutoff Rate")
+    @Description("Fraction of the cutoffs caused by the first move searched")
+    double firstMoveCutoffRate;
+
+    @Label("Branching Factor")
+    @Description("Moves searched per expanded node")
+    double branchingFactor;
+
+    @Label("TT Hit Rate")
+    double ttHitRate;
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Cancelled")
+    boolean cancelled;
+}
@@ -0,0 +1,174 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms of the searches done by every {@code ComputerPlayer} in the JVM,
+ * published as the MBean {@code omok:type=SearchStats} the first time a search is recorded.
+ * Recording is lock-free, so players searching on many threads at once do not wait on each other.
+ */
+public class SearchStats implements SearchStatsMBean {
+    public static final String OBJECT_NAME = "omok:type=SearchStats";
+    // Upper limits of the move time histogram buckets, in milliseconds.
+    private static final long[] MOVE_MILLIS_LIMITS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000};
+    private static final int MAX_DEPTH = 64;
+
+    private static final SearchStats INSTANCE = register(new SearchStats());
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    private final LongAdder expandedNodes = new LongAdder();
+    private final LongAdder depthTotal = new LongAdder();
+    private final LongAdder ttProbes = new LongAdder();
+    private final LongAdder ttHits = new LongAdder();
+    private final LongAdder moveNanos = new LongAdder();
+    private final AtomicLong maxMoveNanos = new AtomicLong();
+    private final AtomicLongArray depthHistogram = new AtomicLongArray(MAX_DEPTH + 1);
+    private final AtomicLongArray moveMillisHistogram = new AtomicLongArray(MOVE_MILLIS_LIMITS.length + 1);
+
+    private SearchStats() {
+    }
+
+    private static SearchStats register(SearchStats stats) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+        return stats;
+    }
+
+    public static SearchStats getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds one search to the statistics.
+     *
+     * @param nanos    how long the search took.
+     * @param nodes    the nodes it searched.
+     * @param cutoffs  the alpha-beta cutoffs it made.
+     * @param expanded the nodes whose moves it searched.
+     * @param depth    the depth it completed.
+     * @param probes   the transposition table probes it made.
+     * @param hits     how many of those probes found their position.
+     */
+    public void record(long nanos, long nodes, long cutoffs, long expanded, int depth, long probes, long hits) {
+        moves.increment();
+        this.nodes.add(nodes);
+        this.cutoffs.add(cutoffs);
+        expandedNodes.add(expanded);
+        depthTotal.add(depth);
+        ttProbes.add(probes);
+        ttHits.add(hits);
+        moveNanos.add(nanos);
+        maxMoveNanos.accumulateAndGet(nanos, Math::max);
+        depthHistogram.incrementAndGet(Math.min(Math.max(depth, 0), MAX_DEPTH));
+        long millis = nanos / 1_000_000L;
+        int bucket = 0;
+        while (bucket < MOVE_MILLIS_LIMITS.length && millis > MOVE_MILLIS_LIMITS[bucket]) {
+            bucket++;
+        }
+        moveMillisHistogram.incrementAndGet(bucket);
+    }
+
+    private static double ratio(long numerator, long denominator) {
+        return denominator == 0 ? 0.0 : (double) numerator / denominator;
+    }
+
+    private static long[] toArray(AtomicLongArray array) {
+        long[] values = new long[array.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.get(i);
+        }
+        return values;
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getCutoffs() {
+        return cutoffs.sum();
+    }
+
+    @Override
+    public double getCutoffRate() {
+        return ratio(cutoffs.sum(), expandedNodes.sum());
+    }
+
+    @Override
+    public double getBranchingFactor() {
+        return ratio(nodes.sum(), expandedNodes.sum());
+    }
+
+    @Override
+    public double getAverageDepth() {
+        return ratio(depthTotal.sum(), moves.sum());
+    }
+
+    @Override
+    public long[] getDepthHistogram() {
+        return toArray(depthHistogram);
+    }
+
+    @Override
+    public double getTtHitRate() {
+        return ratio(ttHits.sum(), ttProbes.sum());
+    }
+
+    @Override
+    public double getAverageMoveMillis() {
+        return ratio(moveNanos.sum(), moves.sum()) / 1e6;
+    }
+
+    @Override
+    public double getMaxMoveMillis() {
+        return maxMoveNanos.get() / 1e6;
+    }
+
+    @Override
+    public double getNodesPerSecond() {
+        return ratio(nodes.sum(), moveNanos.sum()) * 1e9;
+    }
+
+    @Override
+    public long[] getMoveMillisHistogram() {
+        return toArray(moveMillisHistogram);
+    }
+
+    @Override
+    public long[] getMoveMillisBucketLimits() {
+        return MOVE_MILLIS_LIMITS.clone();
+    }
+
+    @Override
+    public void reset() {
+        moves.reset();
+        nodes.reset();
+        cutoffs.reset();
+        expandedNodes.reset();
+        depthTotal.reset();
+        ttProbes.reset();
+        ttHits.reset();
+        moveNanos.reset();
+        maxMoveNanos.set(0);
+        for (int i = 0; i < depthHistogram.length(); i++) {
+            depthHistogram.set(i, 0);
+        }
+        for (int i = 0; i < moveMillisHistogram.length(); i++) {
+            moveMillisHistogram.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Management interface of {@code SearchStats}, which JConsole, JMC and other JMX clients see
+ * under {@code omok:type=SearchStats}. All values are totals over every search since start-up
+ * or the last reset, from every {@code ComputerPlayer} in the JVM.
+ */
+public interface SearchStatsMBean {
+    // Number of calls to bestMove.
+    long getMoves();
+
+    long getNodes();
+
+    long getCutoffs();
+
+    // Fraction of expanded nodes whose moves stopped early on an alpha-beta cutoff.
+    double getCutoffRate();
+
+    // Average number of moves searched per expanded node.
+    double getBranchingFactor();
+
+    double getAverageDepth();
+
+    // Entry d is the number of moves whose search completed depth d.
+    long[] getDepthHistogram();
+
+    double getTtHitRate();
+
+    double getAverageMoveMillis();
+
+    double getMaxMoveMillis();
+
+    double getNodesPerSecond();
+
+    // Entry i is the number of moves that took at most getMoveMillisBucketLimits()[i] ms and
+    // more than the limit before it; the last entry counts the slower ones.
+    long[] getMoveMillisHistogram();
+
+    long[] getMoveMillisBucketLimits();
+
+    void reset();
+}
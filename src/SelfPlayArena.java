@@ -0,0 +1,267 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays engine configurations against each other without the user interface and reports how
+ * each one did. Every pair of configurations plays the given number of games, switching colors
+ * each game. Games start from a few random stones near the center, different for every game
+ * pair, so the otherwise deterministic engines play different games. Games run in parallel, one
+ * per core. One line per game is streamed as CSV or JSON lines while the games run, then a
+ * summary of win/draw/loss, average move time and nodes per second is printed per configuration.
+ * <p>
+ * A configuration is given as {@code name:depth:budgetMillis:evaluator}, where the evaluator is
+ * one of {@code pattern}, {@code attack} or {@code defense}, or as
+ * {@code name:mcts:budgetMillis:threads} for the tree search player, whose nodes are playouts.
+ * Games run one per core unless {@code --concurrency} says otherwise; lower it for players that
+ * search on several threads, so that they do not compete with other games for cores.
+ * Usage: java SelfPlayArena [--games N] [--openings N] [--concurrency N] [--format csv|json]
+ *                           [--out file] [config...]
+ */
+public class SelfPlayArena {
+    // Transposition table of each engine in a game; small, since many games run at once.
+    private static final long ENGINE_TT_BYTES = 4L * 1024 * 1024;
+    // Tree of each tree search player in a game, about 15 MB, for the same reason.
+    private static final int MCTS_NODE_CAPACITY = 1 << 18;
+    // Evaluators the configurations can choose from.
+    private static final Map<String, ComputerPlayer.Evaluator> EVALUATORS = new LinkedHashMap<>();
+
+    static {
+        EVALUATORS.put("pattern", ComputerPlayer.PATTERN_EVALUATOR);
+        // Values our own shapes twice as much as blocking the opponent's.
+        EVALUATORS.put("attack", (board, color) -> 2 * board.score(color) - board.score(1 - color));
+        // Values blocking the opponent's shapes twice as much as building our own.
+        EVALUATORS.put("defense", (board, color) -> board.score(color) - 2 * board.score(1 - color));
+    }
+
+    // One engine configuration and its running totals.
+    private static final class Config {
+        final String name;
+        final int depth;
+        final long budgetMillis;
+        final ComputerPlayer.Evaluator evaluator;
+        // Threads of a tree search player, or 0 for a minimax player.
+        final int mctsThreads;
+        int wins;
+        int draws;
+        int losses;
+        long moves;
+        long moveNanos;
+        long nodes;
+
+        Config(String spec) {
+            String[] parts = spec.split(":");
+            boolean mcts = parts.length == 4 && parts[1].equals("mcts");
+            if (parts.length != 4 || !mcts && !EVALUATORS.containsKey(parts[3])) {
+                throw new IllegalArgumentException("Expected name:depth:budgetMillis:evaluator with evaluator one of "
+                        + EVALUATORS.keySet() + ", or name:mcts:budgetMillis:threads, got " + spec);
+            }
+            name = parts[0];
+            depth = mcts ? 0 : Integer.parseInt(parts[1]);
+            budgetMillis = Long.parseLong(parts[2]);
+            evaluator = mcts ? null : EVALUATORS.get(parts[3]);
+            mctsThreads = mcts ? Integer.parseInt(parts[3]) : 0;
+        }
+
+        Engine newEngine(Stone stone) {
+            if (mctsThreads > 0) {
+                MctsPlayer engine = new MctsPlayer(stone, MCTS_NODE_CAPACITY);
+                engine.setThreads(mctsThreads);
+                engine.setTimeBudget(budgetMillis);
+                return engine;
+            }
+            ComputerPlayer engine = new ComputerPlayer(stone, null, null, ENGINE_TT_BYTES);
+            engine.setMaxDepth(depth);
+            engine.setTimeBudget(budgetMillis);
+            engine.setEvaluator(evaluator);
+            return engine;
+        }
+    }
+
+    // The outcome of one game, with the move counts, time and nodes of each side.
+    private static final class GameResult {
+        final int game;
+        final Config black;
+        final Config white;
+        // SearchBoard.BLACK, SearchBoard.WHITE, or SearchBoard.EMPTY for a draw.
+        final int winner;
+        final long[] moves = new long[2];
+        final long[] moveNanos = new long[2];
+        final long[] nodes = new long[2];
+
+        GameResult(int game, Config black, Config white, int winner) {
+            this.game = game;
+            this.black = black;
+            this.white = white;
+            this.winner = winner;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int gamesPerPair = 20;
+        int openingStones = 2;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String format = "csv";
+        String out = null;
+        List<Config> configs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games" -> gamesPerPair = Integer.parseInt(args[++i]);
+                case "--openings" -> openingStones = Integer.parseInt(args[++i]);
+                case "--concurrency" -> threads = Integer.parseInt(args[++i]);
+                case "--format" -> format = args[++i];
+                case "--out" -> out = args[++i];
+                default -> configs.add(new Config(args[i]));
+            }
+        }
+        if (configs.isEmpty()) {
+            configs.add(new Config("d2:2:100:pattern"));
+            configs.add(new Config("d3:3:100:pattern"));
+            configs.add(new Config("d3-attack:3:100:attack"));
+            configs.add(new Config("d3-defense:3:100:defense"));
+        }
+        boolean json = format.equals("json");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<GameResult>> games = new ArrayList<>();
+        int game = 0;
+        for (int a = 0; a < configs.size(); a++) {
+            for (int b = a + 1; b < configs.size(); b++) {
+                for (int g = 0; g < gamesPerPair; g++) {
+                    // Both games of a color-swapped pair start from the same opening.
+                    long seed = g / 2 * 31L + a * 1_000_003L + b;
+                    Config black = g % 2 == 0 ? configs.get(a) : configs.get(b);
+                    Config white = g % 2 == 0 ? configs.get(b) : configs.get(a);
+                    int id = game++;
+                    int stones = openingStones;
+                    games.add(pool.submit(() -> playGame(id, black, white, stones, new Random(seed))));
+                }
+            }
+        }
+        System.err.printf("Playing %d games on %d threads%n", games.size(), threads);
+
+        long start = System.nanoTime();
+        try (PrintWriter writer = out == null ? new PrintWriter(System.out, true) : new PrintWriter(new FileWriter(out), true)) {
+            if (!json) {
+                writer.println("game,black,white,winner,black_moves,white_moves,black_avg_ms,white_avg_ms,black_nps,white_nps");
+            }
+            // Results are written in game order as soon as each one is done.
+            for (Future<GameResult> future : games) {
+                GameResult result = future.get();
+                record(result);
+                writer.println(json ? toJson(result) : toCsv(result));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        pool.shutdown();
+
+        System.err.printf("Finished in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        System.err.printf("%-16s %6s %6s %6s %6s %10s %12s%n", "config", "win", "draw", "loss", "score", "avg ms", "nodes/s");
+        for (Config config : configs) {
+            int played = config.wins + config.draws + config.losses;
+            System.err.printf("%-16s %6d %6d %6d %5.1f%% %10.2f %12.0f%n", config.name, config.wins, config.draws,
+                    config.losses, played == 0 ? 0.0 : 100.0 * (config.wins + 0.5 * config.draws) / played,
+                    config.moves == 0 ? 0.0 : config.moveNanos / 1e6 / config.moves,
+                    config.moveNanos == 0 ? 0.0 : config.nodes / (config.moveNanos / 1e9));
+        }
+        System.exit(0);
+    }
+
+    // Plays one game to the end and returns its result.
+    private static GameResult playGame(int id, Config blackConfig, Config whiteConfig, int openingStones, Random random) {
+        SearchBoard board = new SearchBoard(ActualBoard.BOARD_SIZE);
+        Engine[] engines = {blackConfig.newEngine(Stone.BLACK), whiteConfig.newEngine(Stone.WHITE)};
+        long[] moves = new long[2];
+        long[] moveNanos = new long[2];
+        long[] nodes = new long[2];
+
+        int color = SearchBoard.BLACK;
+        int center = board.size() / 2;
+        for (int i = 0; i < openingStones; i++) {
+            int x;
+            int y;
+            do {
+                x = center - 2 + random.nextInt(5);
+                y = center - 2 + random.nextInt(5);
+            } while (!board.isEmpty(x, y));
+            board.place(x, y, color);
+            color = 1 - color;
+        }
+
+        while (board.winner() == SearchBoard.EMPTY && !board.isFull()) {
+            Engine engine = engines[color];
+            long start = System.nanoTime();
+            int[] move = engine.bestMove(board);
+            moveNanos[color] += System.nanoTime() - start;
+            moves[color]++;
+            nodes[color] += engine.getNodesSearched();
+            board.place(move[0], move[1], color);
+            color = 1 - color;
+        }
+
+        GameResult result = new GameResult(id, blackConfig, whiteConfig, board.winner());
+        for (int c = 0; c < 2; c++) {
+            result.moves[c] = moves[c];
+            result.moveNanos[c] = moveNanos[c];
+            result.nodes[c] = nodes[c];
+        }
+        return result;
+    }
+
+    // Adds a game to the totals of both configurations; called from one thread only.
+    private static void record(GameResult result) {
+        Config[] sides = {result.black, result.white};
+        for (int c = 0; c < 2; c++) {
+            Config config = sides[c];
+            if (result.winner == SearchBoard.EMPTY) {
+                config.draws++;
+            } else if (result.winner == c) {
+                config.wins++;
+            } else {
+                config.losses++;
+            }
+            config.moves += result.moves[c];
+            config.moveNanos += result.moveNanos[c];
+            config.nodes += result.nodes[c];
+        }
+    }
+
+    private static String winnerName(GameResult result) {
+        if (result.winner == SearchBoard.EMPTY) {
+            return "draw";
+        }
+        return result.winner == SearchBoard.BLACK ? "black" : "white";
+    }
+
+    private static double averageMillis(GameResult result, int color) {
+        return result.moves[color] == 0 ? 0.0 : result.moveNanos[color] / 1e6 / result.moves[color];
+    }
+
+    private static double nodesPerSecond(GameResult result, int color) {
+        return result.moveNanos[color] == 0 ? 0.0 : result.nodes[color] / (result.moveNanos[color] / 1e9);
+    }
+
+    private static String toCsv(GameResult result) {
+        return String.format(Locale.ROOT, "%d,%s,%s,%s,%d,%d,%.3f,%.3f,%.0f,%.0f", result.game, result.black.name,
+                result.white.name, winnerName(result), result.moves[0], result.moves[1],
+                averageMillis(result, 0), averageMillis(result, 1), nodesPerSecond(result, 0), nodesPerSecond(result, 1));
+    }
+
+    private static String toJson(GameResult result) {
+        return String.format(Locale.ROOT, "{\"game\":%d,\"black\":\"%s\",\"white\":\"%s\",\"winner\":\"%s\","
+                        + "\"black_moves\":%d,\"white_moves\":%d,\"black_avg_ms\":%.3f,\"white_avg_ms\":%.3f,"
+                        + "\"black_nps\":%.0f,\"white_nps\":%.0f}", result.game, result.black.name,
+                result.white.name, winnerName(result), result.moves[0], result.moves[1],
+                averageMillis(result, 0), averageMillis(result, 1), nodesPerSecond(result, 0), nodesPerSecond(result, 1));
+    }
+}
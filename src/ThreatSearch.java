@@ -0,0 +1,254 @@
+/**
+ * Threat-space search: looks for a forced win made only of threats, which the main search is far
+ * too shallow to see. The attacker plays only moves that threaten to win, so the defender's
+ * replies are forced and the tree stays narrow however long the sequence is.
+ * <p>
+ * A VCF (victory by continuous fours) uses only fours, each of which the defender must block on
+ * the one position that would complete it. A VCT (victory by continuous threats) also uses open
+ * threes. The defender may answer a three with a four of their own or with any move that leaves
+ * the attacker no open four; moves that leave the open four are lost and are not searched.
+ * When the defender makes a four, the attacker must block it, but the attacker's threats stay.
+ * <p>
+ * The search works on a {@code SearchBoard} in place and restores it before returning. It stops
+ * when its node budget runs out, and then reports no win.
+ */
+public class ThreatSearch {
+    // Node budget used unless another is given.
+    public static final long DEFAULT_NODE_BUDGET = 5_000;
+    // Longest sequences searched, in attacker moves. A VCF of 13 fours is 25 plies with the
+    // defender's replies; threes leave the defender more replies, so VCTs are kept shorter.
+    public static final int MAX_VCF_MOVES = 13;
+    public static final int MAX_VCT_MOVES = 5;
+    // Threats whose positions are this close on a line of the threat can stop it.
+    private static final int DEFENSE_DISTANCE = 4;
+
+    private long nodeBudget;
+    private SearchBoard board;
+    private int attacker;
+    private int defender;
+    private long nodes;
+    private boolean aborted;
+
+    public ThreatSearch(long nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Looks for a forced win for the given color, which must be the color to move: first a VCF,
+     * then, if the budget allows, a VCT.
+     *
+     * @param position the position to search; it is searched in place and restored afterwards.
+     * @param color    the color to move.
+     * @return the coordinates [x, y] of the first move of a forced win, or null if none was found.
+     */
+    public int[] findWin(SearchBoard position, int color) {
+        board = position;
+        attacker = color;
+        defender = 1 - color;
+        nodes = 0;
+        aborted = false;
+        int move = winningMove(MAX_VCF_MOVES, false);
+        if (move < 0 && !aborted) {
+            move = winningMove(MAX_VCT_MOVES, true);
+        }
+        board = null;
+        if (move < 0) {
+            return null;
+        }
+        return new int[]{move / position.size(), move % position.size()};
+    }
+
+    /**
+     * Finds an attacker move that wins by force, with the attacker to move. A five wins at once.
+     * If the defender has a five to make, the attacker must block it, and the block is the only
+     * move tried. Otherwise fours are tried first, since they leave a single reply, then, in a
+     * VCT, open threes.
+     *
+     * @param depth the number of attacker moves left.
+     * @param vct   whether threes may be used as well as fours.
+     * @return the encoded move {@code x * size + y}, or -1 if none was found.
+     */
+    private int winningMove(int depth, boolean vct) {
+        if (++nodes > nodeBudget) {
+            aborted = true;
+        }
+        if (aborted) {
+            return -1;
+        }
+        int size = board.size();
+        int[] candidates = new int[board.candidateCount()];
+        int count = board.candidateMoves(candidates);
+        int[] classes = new int[count];
+        int block = -1;
+        int defenderFives = 0;
+        for (int c = 0; c < count; c++) {
+            int x = candidates[c] / size;
+            int y = candidates[c] % size;
+            classes[c] = board.threatClasses(x, y, attacker);
+            if (linesWith(classes[c], LinePatterns.FIVE) > 0) {
+                return candidates[c];
+            }
+            if (linesWith(board.threatClasses(x, y, defender), LinePatterns.FIVE) > 0) {
+                defenderFives++;
+                block = candidates[c];
+            }
+        }
+        if (depth == 0 || defenderFives > 1) {
+            return -1;
+        }
+        if (defenderFives == 1) {
+            return defenderLosesAfter(block, depth, vct) ? block : -1;
+        }
+
+        for (int c = 0; c < count; c++) {
+            if (linesWith(classes[c], LinePatterns.FOUR) > 0 && defenderLosesAfter(candidates[c], depth, vct)) {
+                return candidates[c];
+            }
+        }
+        if (vct) {
+            for (int c = 0; c < count; c++) {
+                if (linesWith(classes[c], LinePatterns.FOUR) == 0 && linesWith(classes[c], LinePatterns.OPEN_THREE) > 0
+                        && defenderLosesAfter(candidates[c], depth, vct)) {
+                    return candidates[c];
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Plays an attacker move and checks that every defense against it loses.
+    private boolean defenderLosesAfter(int move, int depth, boolean vct) {
+        int size = board.size();
+        board.place(move / size, move % size, attacker);
+        boolean loses = defenderLoses(depth - 1, vct);
+        board.remove(move / size, move % size, attacker);
+        return loses && !aborted;
+    }
+
+    /**
+     * Checks whether the defender, who is to move, loses by force. A five of their own saves
+     * them. Against two fives they lose, and against one they must block it. Against open fours
+     * only their own fours and moves that stop every open four are tried.
+     *
+     * @param depth the number of attacker moves left.
+     * @param vct   whether threes may be used as well as fours.
+     * @return true if the attacker wins against every reply, false if a defense was found or the
+     *         budget ran out.
+     */
+    private boolean defenderLoses(int depth, boolean vct) {
+        if (++nodes > nodeBudget) {
+            aborted = true;
+        }
+        if (aborted) {
+            return false;
+        }
+        int size = board.size();
+        int[] candidates = new int[board.candidateCount()];
+        int count = board.candidateMoves(candidates);
+        int attackerFives = 0;
+        int block = -1;
+        int[] threats = new int[count];
+        int threatCount = 0;
+        int[] defenderClasses = new int[count];
+        for (int c = 0; c < count; c++) {
+            int x = candidates[c] / size;
+            int y = candidates[c] % size;
+            defenderClasses[c] = board.threatClasses(x, y, defender);
+            if (linesWith(defenderClasses[c], LinePatterns.FIVE) > 0) {
+                return false;
+            }
+            int attackerClasses = board.threatClasses(x, y, attacker);
+            if (linesWith(attackerClasses, LinePatterns.FIVE) > 0) {
+                attackerFives++;
+                block = candidates[c];
+            } else if (vct && isWinningThreat(attackerClasses)) {
+                threats[threatCount++] = candidates[c];
+            }
+        }
+        if (attackerFives > 1) {
+            return true;
+        }
+        if (attackerFives == 1) {
+            board.place(block / size, block % size, defender);
+            boolean loses = winningMove(depth, vct) >= 0;
+            board.remove(block / size, block % size, defender);
+            return loses;
+        }
+        if (threatCount == 0) {
+            return false;
+        }
+
+        for (int c = 0; c < count; c++) {
+            int x = candidates[c] / size;
+            int y = candidates[c] % size;
+            boolean four = linesWith(defenderClasses[c], LinePatterns.FOUR) > 0;
+            if (!four && !isNearAny(x, y, threats, threatCount)) {
+                continue;
+            }
+            board.place(x, y, defender);
+            boolean loses = !four && stillThreatened(threats, threatCount) || winningMove(depth, vct) >= 0;
+            board.remove(x, y, defender);
+            if (!loses || aborted) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Checks whether the packed threat classes of an attacker stone make an open four or two fours.
+    private static boolean isWinningThreat(int classes) {
+        return linesWith(classes, LinePatterns.OPEN_FOUR) > 0 || linesWith(classes, LinePatterns.FOUR) > 1;
+    }
+
+    // Counts the lines of the packed threat classes (see SearchBoard.threatClasses) that make
+    // at least the given class.
+    private static int linesWith(int classes, int threat) {
+        int count = 0;
+        for (int shift = 0; shift < 16; shift += 4) {
+            if ((classes >>> shift & 0xF) >= threat) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Checks whether any of the positions that were winning threats still is one.
+    private boolean stillThreatened(int[] threats, int count) {
+        int size = board.size();
+        for (int t = 0; t < count; t++) {
+            int x = threats[t] / size;
+            int y = threats[t] % size;
+            if (board.isEmpty(x, y) && isWinningThreat(board.threatClasses(x, y, attacker))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Checks whether (x, y) lies on one of the four lines through a threat, close enough to change it.
+    private boolean isNearAny(int x, int y, int[] threats, int count) {
+        int size = board.size();
+        for (int t = 0; t < count; t++) {
+            int dx = Math.abs(x - threats[t] / size);
+            int dy = Math.abs(y - threats[t] % size);
+            if ((dx == 0 || dy == 0 || dx == dy) && Math.max(dx, dy) <= DEFENSE_DISTANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the number of nodes one call to {@code findWin} may search.
+     *
+     * @param nodes the node budget; 0 turns the search off.
+     */
+    public void setNodeBudget(long nodes) {
+        this.nodeBudget = nodes;
+    }
+
+    // Returns the number of nodes the last call to findWin searched.
+    public long getNodesSearched() {
+        return Math.min(nodes, nodeBudget);
+    }
+}
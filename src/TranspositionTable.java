@@ -0,0 +1,140 @@
+import java.util.Arrays;
+
+/**
+ * A fixed-size transposition table for the minimax search. Each slot holds a position key
+ * and one packed {@code long} with the score, search depth, bound type, best move and the age
+ * of the search that stored it. The key is stored XOR-ed with the data, so a slot that was
+ * torn by two threads writing at once simply fails to match instead of returning bad data,
+ * and no locks are needed.
+ */
+public class TranspositionTable {
+    // Bound types stored with a score.
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+    // Returned by probe when the position is not in the table.
+    public static final long MISS = 0L;
+    // Each entry is two longs.
+    public static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    // Age of the current search, 1 to 63, so that a stored entry is never all zero bits.
+    private int age = 1;
+    private long probes = 0;
+    private long hits = 0;
+
+    /**
+     * Creates a table that uses at most the given number of bytes. The number of entries is
+     * the largest power of two that fits, with a minimum of one.
+     *
+     * @param maxBytes the memory cap for the table, in bytes.
+     */
+    public TranspositionTable(long maxBytes) {
+        long entries = Math.max(1L, maxBytes / ENTRY_BYTES);
+        int capacity = (int) Long.highestOneBit(Math.min(entries, 1L << 30));
+        this.keys = new long[capacity];
+        this.data = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Marks the start of a new search. Entries left over from earlier searches can then be
+     * replaced even if they were searched deeper.
+     */
+    public void newSearch() {
+        age = age % 63 + 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the position key.
+     * @return the packed entry for the position, or {@code MISS} if it is not stored. Use the
+     *         static accessors to read the fields.
+     */
+    public long probe(long key) {
+        probes++;
+        int index = (int) key & mask;
+        long entry = data[index];
+        if (entry != MISS && (keys[index] ^ entry) == key) {
+            hits++;
+            return entry;
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the result of searching a position. A slot is overwritten when it holds the same
+     * position, when it was written by an older search, or when the new result was searched at
+     * least as deep; otherwise the deeper entry is kept.
+     *
+     * @param key   the position key.
+     * @param depth the remaining search depth the score was computed with.
+     * @param bound {@code EXACT}, {@code LOWER} or {@code UPPER}.
+     * @param score the score of the position.
+     * @param move  the best move found, or -1 if there is none.
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        int index = (int) key & mask;
+        long old = data[index];
+        if (old != MISS && (keys[index] ^ old) != key && ageOf(old) == age && depthOf(old) > depth) {
+            return;
+        }
+        long entry = (score & 0xFFFFFFFFL)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) age << 42)
+                | ((long) ((move + 1) & 0xFFFF) << 48);
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    public static int scoreOf(long entry) {
+        return (int) entry;
+    }
+
+    public static int depthOf(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int boundOf(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    public static int moveOf(long entry) {
+        return (int) (entry >>> 48) - 1;
+    }
+
+    private static int ageOf(long entry) {
+        return (int) (entry >>> 42) & 0x3F;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    // Returns the fraction of probes that found their position, or 0 if nothing was probed yet.
+    public double hitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    /**
+     * Removes every entry and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        probes = 0;
+        hits = 0;
+    }
+}